@@ -2,5 +2,11 @@ package kanban;
 
 public class Main {
     public static void main(String[] args) {
+        // Without TCP_NODELAY every small response of KVServer and HttpTaskServer waits out the client's delayed
+        // ACK, about 40 ms per request. The property is read once for every HttpServer in the JVM, so it is set
+        // here, where the process starts, before any server is created. -Dsun.net.httpserver.nodelay overrides it
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
     }
 }
\ No newline at end of file
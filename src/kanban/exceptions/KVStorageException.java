@@ -0,0 +1,7 @@
+package kanban.exceptions;
+
+public class KVStorageException extends RuntimeException {
+    public KVStorageException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
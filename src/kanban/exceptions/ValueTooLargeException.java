@@ -0,0 +1,7 @@
+package kanban.exceptions;
+
+public class ValueTooLargeException extends KVStorageException {
+    public ValueTooLargeException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -4,11 +4,16 @@ public enum Endpoint {
     GET_TASK,
     GET_ALL_TASKS,
     GET_PRIORITIZED_TASKS,
+    GET_TASKS_BETWEEN,
+    GET_UPCOMING_TASKS,
     GET_ALL_SUBTASKS,
     CREATE_TASK,
+    CREATE_TASKS,
     UPDATE_TASK,
+    UPDATE_TASKS,
     DELETE_TASK,
     DELETE_ALL_TASKS,
     GET_HISTORY,
+    GET_FREE_TIME_INTERVALS,
     UNSUPPORTED
 }
\ No newline at end of file
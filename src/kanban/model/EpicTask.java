@@ -2,13 +2,11 @@ package kanban.model;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Set;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ArrayList;
 
 public class EpicTask extends Task {
-    private final Set<Integer> subTasksIds = new LinkedHashSet<>();
+    private final IntLinkedSet subTasksIds = new IntLinkedSet();
     private ZonedDateTime endTime;
 
     public EpicTask(String name, String description) {
@@ -38,7 +36,13 @@ public class EpicTask extends Task {
     }
 
     public List<Integer> getSubTasksIds() {
-        return new ArrayList<>(subTasksIds);
+        List<Integer> result = new ArrayList<>(subTasksIds.size());
+        subTasksIds.forEach(result::add);
+        return result;
+    }
+
+    public IntSetView getSubTasksIdsView() {
+        return subTasksIds.asReadOnlyView();
     }
 
     public void addSubTaskId(int subTaskId) {
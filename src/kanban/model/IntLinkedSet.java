@@ -0,0 +1,247 @@
+package kanban.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+@JsonAdapter(IntLinkedSet.IntLinkedSetAdapter.class)
+public class IntLinkedSet implements IntSetView {
+    private static final int FREE_KEY = 0;
+    private int[] values = new int[4];
+    private int size;
+    private int[] keys = new int[8];
+    private boolean containsFreeKey;
+    private int keysCount;
+    private final IntSetView view = new ReadOnlyView();
+
+    public IntSetView asReadOnlyView() {
+        return view;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        if (value == FREE_KEY) {
+            return containsFreeKey;
+        }
+        return keys[findSlot(keys, value)] == value;
+    }
+
+    @Override
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    @Override
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public boolean add(int value) {
+        if (!addKey(value)) {
+            return false;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        if (!removeKey(value)) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                size--;
+                break;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+        Arrays.fill(keys, FREE_KEY);
+        containsFreeKey = false;
+        keysCount = 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IntLinkedSet that = (IntLinkedSet) o;
+        return Arrays.equals(values, 0, size, that.values, 0, that.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + values[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(values[i]);
+        }
+        return result.append("]").toString();
+    }
+
+    private boolean addKey(int value) {
+        if (value == FREE_KEY) {
+            if (containsFreeKey) {
+                return false;
+            }
+            containsFreeKey = true;
+            return true;
+        }
+        int slot = findSlot(keys, value);
+        if (keys[slot] == value) {
+            return false;
+        }
+        keys[slot] = value;
+        if (++keysCount * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    private boolean removeKey(int value) {
+        if (value == FREE_KEY) {
+            if (!containsFreeKey) {
+                return false;
+            }
+            containsFreeKey = false;
+            return true;
+        }
+        int slot = findSlot(keys, value);
+        if (keys[slot] != value) {
+            return false;
+        }
+        keys[slot] = FREE_KEY;
+        keysCount--;
+        int mask = keys.length - 1;
+        int next = (slot + 1) & mask;
+        while (keys[next] != FREE_KEY) {
+            int key = keys[next];
+            keys[next] = FREE_KEY;
+            keys[findSlot(keys, key)] = key;
+            next = (next + 1) & mask;
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        keys = new int[capacity];
+        for (int key : oldKeys) {
+            if (key != FREE_KEY) {
+                keys[findSlot(keys, key)] = key;
+            }
+        }
+    }
+
+    private static int findSlot(int[] keys, int value) {
+        int mask = keys.length - 1;
+        int hash = value * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != FREE_KEY && keys[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private class ReadOnlyView implements IntSetView {
+        @Override
+        public int size() {
+            return IntLinkedSet.this.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return IntLinkedSet.this.isEmpty();
+        }
+
+        @Override
+        public boolean contains(int value) {
+            return IntLinkedSet.this.contains(value);
+        }
+
+        @Override
+        public int get(int index) {
+            return IntLinkedSet.this.get(index);
+        }
+
+        @Override
+        public void forEach(IntConsumer action) {
+            IntLinkedSet.this.forEach(action);
+        }
+
+        @Override
+        public int[] toArray() {
+            return IntLinkedSet.this.toArray();
+        }
+
+        @Override
+        public String toString() {
+            return IntLinkedSet.this.toString();
+        }
+    }
+
+    static class IntLinkedSetAdapter extends TypeAdapter<IntLinkedSet> {
+        @Override
+        public void write(JsonWriter jsonWriter, IntLinkedSet intLinkedSet) throws IOException {
+            jsonWriter.beginArray();
+            for (int i = 0; i < intLinkedSet.size; i++) {
+                jsonWriter.value(intLinkedSet.values[i]);
+            }
+            jsonWriter.endArray();
+        }
+
+        @Override
+        public IntLinkedSet read(JsonReader jsonReader) throws IOException {
+            IntLinkedSet result = new IntLinkedSet();
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                result.add(jsonReader.nextInt());
+            }
+            jsonReader.endArray();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package kanban.model;
+
+import java.util.function.IntConsumer;
+
+public interface IntSetView {
+    int size();
+
+    boolean isEmpty();
+
+    boolean contains(int value);
+
+    int get(int index);
+
+    void forEach(IntConsumer action);
+
+    int[] toArray();
+}
@@ -0,0 +1,22 @@
+package kanban.model;
+
+import java.util.List;
+
+public class TaskPage {
+    private final List<Task> tasks;
+    // Passed back as after to read the next page, null when the page is empty
+    private final String nextCursor;
+
+    public TaskPage(List<Task> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
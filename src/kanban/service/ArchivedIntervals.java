@@ -0,0 +1,74 @@
+package kanban.service;
+
+import kanban.model.EpicTask;
+import kanban.model.Task;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+class ArchivedIntervals {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private long[] startSeconds = new long[0];
+    private long[] endSeconds = new long[0];
+
+    void addAll(List<Task> tasks) {
+        List<long[]> intervals = new ArrayList<>(startSeconds.length + tasks.size());
+        for (int i = 0; i < startSeconds.length; i++) {
+            intervals.add(new long[] {startSeconds[i], endSeconds[i]});
+        }
+        for (Task task : tasks) {
+            if (!(task instanceof EpicTask) && task.areTimePropertiesSet()) {
+                intervals.add(new long[] {task.getStartTime().toEpochSecond(), task.getEndTime().toEpochSecond()});
+            }
+        }
+        intervals.sort(Comparator.comparingLong(interval -> interval[0]));
+        startSeconds = new long[intervals.size()];
+        endSeconds = new long[intervals.size()];
+        for (int i = 0; i < intervals.size(); i++) {
+            startSeconds[i] = intervals.get(i)[0];
+            endSeconds[i] = intervals.get(i)[1];
+        }
+    }
+
+    boolean intersects(Task task) {
+        int index = floorIndex(task.getEndTime().toEpochSecond() - 1);
+        return index >= 0 && endSeconds[index] > task.getStartTime().toEpochSecond();
+    }
+
+    int floorIndex(ZonedDateTime time) {
+        return floorIndex(time.toEpochSecond());
+    }
+
+    int size() {
+        return startSeconds.length;
+    }
+
+    ZonedDateTime getFrom(int index) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(startSeconds[index]), UTC);
+    }
+
+    ZonedDateTime getTo(int index) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(endSeconds[index]), UTC);
+    }
+
+    void clear() {
+        startSeconds = new long[0];
+        endSeconds = new long[0];
+    }
+
+    private int floorIndex(long second) {
+        int index = Arrays.binarySearch(startSeconds, second);
+        if (index >= 0) {
+            while (index + 1 < startSeconds.length && startSeconds[index + 1] == second) {
+                index++;
+            }
+            return index;
+        }
+        return -index - 2;
+    }
+}
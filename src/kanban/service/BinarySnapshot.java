@@ -0,0 +1,289 @@
+package kanban.service;
+
+import kanban.exceptions.InvalidDataException;
+import kanban.model.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+class BinarySnapshot {
+    static final int MAGIC = 0x4B4E424E;
+    static final short VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final long NO_START_TIME = Long.MIN_VALUE;
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+
+    private final ByteBuffer buffer;
+    private final int generation;
+    private final int nextTaskId;
+    private final int taskCount;
+    private final int historyCount;
+    private int readTasksCount;
+
+    private BinarySnapshot(ByteBuffer buffer) throws InvalidDataException {
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new InvalidDataException("Unsupported snapshot format");
+            }
+            buffer.getShort();
+            generation = buffer.getInt();
+            nextTaskId = buffer.getInt();
+            taskCount = buffer.getInt();
+            historyCount = buffer.getInt();
+        } catch (BufferUnderflowException exception) {
+            throw new InvalidDataException("Could not read snapshot header");
+        }
+    }
+
+    static BinarySnapshot open(Path file) throws IOException, InvalidDataException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinarySnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static BinarySnapshot wrap(ByteBuffer buffer) throws InvalidDataException {
+        return new BinarySnapshot(buffer);
+    }
+
+    static boolean isBinarySnapshot(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            int readBytes = 0;
+            while (magic.hasRemaining() && readBytes != -1) {
+                readBytes = channel.read(magic);
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    int getNextTaskId() {
+        return nextTaskId;
+    }
+
+    int getTaskCount() {
+        return taskCount;
+    }
+
+    boolean hasNextTask() {
+        return readTasksCount < taskCount;
+    }
+
+    int position() {
+        return buffer.position();
+    }
+
+    Task nextTask() throws InvalidDataException {
+        Task task = readTask(buffer, true);
+        readTasksCount++;
+        return task;
+    }
+
+    Task nextTaskSkeleton() throws InvalidDataException {
+        Task task = readTask(buffer, false);
+        readTasksCount++;
+        return task;
+    }
+
+    Task readTaskAt(int position) throws InvalidDataException {
+        ByteBuffer record = buffer.duplicate();
+        try {
+            record.position(position);
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidDataException("Could not read task from snapshot");
+        }
+        return readTask(record, true);
+    }
+
+    int[] readHistory() throws InvalidDataException {
+        while (hasNextTask()) {
+            nextTask();
+        }
+        try {
+            int[] result = new int[historyCount];
+            for (int i = 0; i < historyCount; i++) {
+                result[i] = buffer.getInt();
+            }
+            return result;
+        } catch (BufferUnderflowException exception) {
+            throw new InvalidDataException("Could not read history from snapshot");
+        }
+    }
+
+    static ByteBuffer encode(List<Task> tasks, List<Task> history, int generation, int nextTaskId) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + tasks.size() * 64 + history.size() * Integer.BYTES);
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) 0)
+                .putInt(generation)
+                .putInt(nextTaskId)
+                .putInt(tasks.size())
+                .putInt(history.size());
+        for (Task task : tasks) {
+            buffer = putTask(buffer, task);
+        }
+        buffer = ensureCapacity(buffer, history.size() * Integer.BYTES);
+        for (Task task : history) {
+            buffer.putInt(task.getTaskId());
+        }
+        return buffer.flip();
+    }
+
+    static byte[] encodeTask(Task task) {
+        ByteBuffer buffer = putTask(ByteBuffer.allocate(64), task).flip();
+        byte[] result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return result;
+    }
+
+    static Task decodeTask(byte[] value) throws InvalidDataException {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        Task task = readTask(buffer, true);
+        if (buffer.hasRemaining()) {
+            throw new InvalidDataException("Could not read task from snapshot");
+        }
+        return task;
+    }
+
+    static void write(Path file, ByteBuffer snapshot, boolean force) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer source = snapshot.duplicate();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+            if (force) {
+                channel.force(false);
+            }
+        }
+    }
+
+    private static Task readTask(ByteBuffer buffer, boolean withStrings) throws InvalidDataException {
+        try {
+            TaskType taskType = TASK_TYPES[buffer.get()];
+            int taskId = buffer.getInt();
+            TaskStatus status = TASK_STATUSES[buffer.get()];
+            String name = null;
+            String description = null;
+            if (withStrings) {
+                name = getString(buffer);
+                description = getString(buffer);
+            } else {
+                skipString(buffer);
+                skipString(buffer);
+            }
+            Task task;
+            if (taskType == TaskType.EPIC_TASK) {
+                task = new EpicTask(name, description);
+            } else {
+                long startTime = buffer.getLong();
+                int duration = buffer.getInt();
+                if (taskType == TaskType.SUBTASK) {
+                    task = new SubTask(name, description, buffer.getInt());
+                } else {
+                    task = new Task(name, description);
+                }
+                if (startTime != NO_START_TIME) {
+                    task.setTimeProperties(
+                            ZonedDateTime.ofInstant(Instant.ofEpochSecond(startTime * 60), UTC), duration);
+                }
+            }
+            task.setTaskId(taskId);
+            task.setStatus(status);
+            return task;
+        } catch (RuntimeException exception) {
+            throw new InvalidDataException("Could not read task from snapshot");
+        }
+    }
+
+    private static ByteBuffer putTask(ByteBuffer buffer, Task task) {
+        byte[] name = toBytes(task.getName());
+        byte[] description = toBytes(task.getDescription());
+        buffer = ensureCapacity(buffer, 2 * Byte.BYTES + 6 * Integer.BYTES + Long.BYTES
+                + (name == null ? 0 : name.length) + (description == null ? 0 : description.length));
+        TaskType taskType = getTaskType(task);
+        buffer.put((byte) taskType.ordinal())
+                .putInt(task.getTaskId())
+                .put((byte) task.getStatus().ordinal());
+        putBytes(buffer, name);
+        putBytes(buffer, description);
+        if (taskType != TaskType.EPIC_TASK) {
+            if (task.areTimePropertiesSet()) {
+                buffer.putLong(Math.floorDiv(task.getStartTime().toEpochSecond(), 60))
+                        .putInt(task.getDuration());
+            } else {
+                buffer.putLong(NO_START_TIME).putInt(0);
+            }
+        }
+        if (taskType == TaskType.SUBTASK) {
+            buffer.putInt(((SubTask) task).getMasterTaskId());
+        }
+        return buffer;
+    }
+
+    private static TaskType getTaskType(Task task) {
+        if (task instanceof EpicTask) {
+            return TaskType.EPIC_TASK;
+        } else if (task instanceof SubTask) {
+            return TaskType.SUBTASK;
+        } else {
+            return TaskType.TASK;
+        }
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer result = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        return result.put(buffer.flip());
+    }
+}
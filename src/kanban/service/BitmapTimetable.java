@@ -0,0 +1,141 @@
+package kanban.service;
+
+import kanban.model.*;
+
+import java.util.Arrays;
+
+public class BitmapTimetable implements Timetable {
+    private final static long START_EPOCH_SECOND = InMemoryTaskManager.START_TIME.toEpochSecond();
+    private final static int PAGE_SHIFT = 16;
+    private final static int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private final static int PAGE_MASK = PAGE_SIZE - 1;
+    private long[][] pages = new long[0][];
+
+    @Override
+    public boolean isTaskTimeValid(Task task, Task replacedTask) {
+        long from = getStartMinute(task);
+        long to = getEndMinute(task);
+        if (replacedTask == null || !replacedTask.areTimePropertiesSet() || replacedTask instanceof EpicTask) {
+            return isFree(from, to);
+        }
+        long replacedFrom = getStartMinute(replacedTask);
+        long replacedTo = getEndMinute(replacedTask);
+        return isFree(from, Math.min(to, replacedFrom)) && isFree(Math.max(from, replacedTo), to);
+    }
+
+    @Override
+    public void addTask(Task task) {
+        if (!task.areTimePropertiesSet() || task instanceof EpicTask) {
+            return;
+        }
+        update(getStartMinute(task), getEndMinute(task), true);
+    }
+
+    @Override
+    public void removeTask(Task task) {
+        if (!task.areTimePropertiesSet() || task instanceof EpicTask) {
+            return;
+        }
+        update(getStartMinute(task), getEndMinute(task), false);
+    }
+
+    @Override
+    public void clear() {
+        pages = new long[0][];
+    }
+
+    boolean isFree(long from, long to) {
+        while (from < to) {
+            int pageIndex = (int) (from >>> PAGE_SHIFT);
+            if (pageIndex >= pages.length) {
+                return true;
+            }
+            long pageEnd = Math.min(to, ((long) pageIndex + 1) << PAGE_SHIFT);
+            long[] page = pages[pageIndex];
+            int fromBit = (int) (from & PAGE_MASK);
+            if (page != null && !isFree(page, fromBit, fromBit + (int) (pageEnd - from))) {
+                return false;
+            }
+            from = pageEnd;
+        }
+        return true;
+    }
+
+    private static boolean isFree(long[] page, int fromBit, int toBit) {
+        int fromWord = fromBit >>> 6;
+        int lastWord = (toBit - 1) >>> 6;
+        long firstMask = -1L << fromBit;
+        long lastMask = -1L >>> -toBit;
+        if (fromWord == lastWord) {
+            return (page[fromWord] & firstMask & lastMask) == 0;
+        }
+        if ((page[fromWord] & firstMask) != 0) {
+            return false;
+        }
+        for (int word = fromWord + 1; word < lastWord; word++) {
+            if (page[word] != 0) {
+                return false;
+            }
+        }
+        return (page[lastWord] & lastMask) == 0;
+    }
+
+    private void update(long from, long to, boolean occupied) {
+        while (from < to) {
+            int pageIndex = (int) (from >>> PAGE_SHIFT);
+            long pageEnd = Math.min(to, ((long) pageIndex + 1) << PAGE_SHIFT);
+            long[] page = getPage(pageIndex, occupied);
+            int fromBit = (int) (from & PAGE_MASK);
+            if (page != null) {
+                update(page, fromBit, fromBit + (int) (pageEnd - from), occupied);
+            }
+            from = pageEnd;
+        }
+    }
+
+    private static void update(long[] page, int fromBit, int toBit, boolean occupied) {
+        int fromWord = fromBit >>> 6;
+        int lastWord = (toBit - 1) >>> 6;
+        long firstMask = -1L << fromBit;
+        long lastMask = -1L >>> -toBit;
+        for (int word = fromWord; word <= lastWord; word++) {
+            long mask = -1L;
+            if (word == fromWord) {
+                mask &= firstMask;
+            }
+            if (word == lastWord) {
+                mask &= lastMask;
+            }
+            if (occupied) {
+                page[word] |= mask;
+            } else {
+                page[word] &= ~mask;
+            }
+        }
+    }
+
+    private long[] getPage(int pageIndex, boolean create) {
+        if (pageIndex >= pages.length) {
+            if (!create) {
+                return null;
+            }
+            pages = Arrays.copyOf(pages, Math.max(pageIndex + 1, pages.length * 2));
+        }
+        if (pages[pageIndex] == null && create) {
+            pages[pageIndex] = new long[PAGE_SIZE >>> 6];
+        }
+        return pages[pageIndex];
+    }
+
+    private static long getStartMinute(Task task) {
+        long seconds = task.getStartTime().toEpochSecond() - START_EPOCH_SECOND;
+        return Math.max(0, Math.floorDiv(seconds, 60));
+    }
+
+    private static long getEndMinute(Task task) {
+        long seconds = task.getStartTime().toEpochSecond() - START_EPOCH_SECOND
+                + task.getDuration() * 60L
+                + (task.getStartTime().getNano() > 0 ? 1 : 0);
+        return Math.max(0, Math.floorDiv(seconds + 59, 60));
+    }
+}
@@ -0,0 +1,125 @@
+package kanban.service;
+
+import kanban.model.*;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+public class BucketTimetable implements Timetable {
+    private final static ZonedDateTime START_TIME = InMemoryTaskManager.START_TIME;
+    private final static int TIME_INTERVAL_LENGTH = 15;
+    private ZonedDateTime endTime = START_TIME.plusYears(1);
+    private final Map<TimeInterval, List<OccupiedTimeInterval<Integer>>> timetable = new HashMap<>();
+    private final boolean sparse;
+
+    public BucketTimetable() {
+        this(false);
+    }
+
+    public BucketTimetable(boolean sparse) {
+        this.sparse = sparse;
+        if (!sparse) {
+            initiateTimetable();
+        }
+    }
+
+    @Override
+    public boolean isTaskTimeValid(Task task, Task replacedTask) {
+        TimeInterval taskTimeInterval = new TimeInterval(task.getStartTime(), task.getEndTime());
+        for (TimeInterval interval : getTimeIntervalsToCheck(task)) {
+            for (OccupiedTimeInterval<Integer> occupiedInterval
+                    : timetable.getOrDefault(interval, Collections.emptyList())) {
+                if (TimeInterval.doIntersect(taskTimeInterval, occupiedInterval)
+                        && (replacedTask == null || occupiedInterval.getValue() != replacedTask.getTaskId())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        if (!task.areTimePropertiesSet() || task instanceof EpicTask) {
+            return;
+        }
+        if (!sparse && endTime.isBefore(task.getEndTime())) {
+            extendTimetable(task.getEndTime());
+        }
+        TimeInterval taskTimeInterval = new TimeInterval(task.getStartTime(), task.getEndTime());
+        for (TimeInterval interval : getTimeIntervalsToCheck(task)) {
+            timetable.computeIfAbsent(interval, key -> new ArrayList<>()).add(new OccupiedTimeInterval<> (
+                    TimeInterval.getIntersection(interval, taskTimeInterval), task.getTaskId()));
+        }
+    }
+
+    @Override
+    public void removeTask(Task task) {
+        if (!task.areTimePropertiesSet() || task instanceof EpicTask) {
+            return;
+        }
+        TimeInterval taskTimeInterval = new TimeInterval(task.getStartTime(), task.getEndTime());
+        for (TimeInterval interval : getTimeIntervalsToCheck(task)) {
+            List<OccupiedTimeInterval<Integer>> occupiedIntervals = timetable.get(interval);
+            if (occupiedIntervals == null) {
+                continue;
+            }
+            occupiedIntervals.remove(new OccupiedTimeInterval<> (
+                    TimeInterval.getIntersection(interval, taskTimeInterval), task.getTaskId()));
+            if (sparse && occupiedIntervals.isEmpty()) {
+                timetable.remove(interval);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        timetable.clear();
+        if (!sparse) {
+            endTime = START_TIME.plusYears(1);
+            initiateTimetable();
+        }
+    }
+
+    private void initiateTimetable() {
+        ZonedDateTime from = START_TIME;
+        ZonedDateTime to = START_TIME.plusMinutes(TIME_INTERVAL_LENGTH);
+        while (to.isBefore(endTime)) {
+            timetable.put(new TimeInterval(from, to), new ArrayList<>());
+            from = to;
+            to = to.plusMinutes(TIME_INTERVAL_LENGTH);
+        }
+        timetable.put(new TimeInterval(from, to), new ArrayList<>());
+        endTime = to;
+    }
+
+    private void extendTimetable(ZonedDateTime newEndTime) {
+        ZonedDateTime from = endTime;
+        ZonedDateTime to = from.plusMinutes(TIME_INTERVAL_LENGTH);
+        while (to.isBefore(newEndTime)) {
+            timetable.put(new TimeInterval(from, to), new ArrayList<>());
+            from = to;
+            to = to.plusMinutes(TIME_INTERVAL_LENGTH);
+        }
+        timetable.put(new TimeInterval(from, to), new ArrayList<>());
+        endTime = to;
+    }
+
+    private List<TimeInterval> getTimeIntervalsToCheck(Task task) {
+        Duration beforeTaskStart = Duration.between(START_TIME, task.getStartTime());
+        int numberOfTimeIntervalsBeforeTaskStart = (int) beforeTaskStart.toMinutes() / TIME_INTERVAL_LENGTH;
+        List<TimeInterval> timeIntervalsToCheck = new ArrayList<>();
+        if (sparse || task.getStartTime().isBefore(endTime)) {
+            ZonedDateTime from = START_TIME.plusMinutes(numberOfTimeIntervalsBeforeTaskStart * TIME_INTERVAL_LENGTH);
+            ZonedDateTime to = from.plusMinutes(TIME_INTERVAL_LENGTH);
+            while (to.isBefore(task.getEndTime()) && (sparse || to.isBefore(endTime))) {
+                timeIntervalsToCheck.add(new TimeInterval(from, to));
+                from = to;
+                to = to.plusMinutes(TIME_INTERVAL_LENGTH);
+            }
+            timeIntervalsToCheck.add(new TimeInterval(from, to));
+        }
+        return timeIntervalsToCheck;
+    }
+}
@@ -0,0 +1,92 @@
+package kanban.service;
+
+import kanban.exceptions.TaskManagerException;
+import kanban.model.Task;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+public class DenseTaskStore implements TaskStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private Task[] tasks = new Task[INITIAL_CAPACITY];
+    private int size;
+    private int maxTaskId;
+
+    @Override
+    public Task get(int taskId) {
+        if (taskId < 0 || taskId > maxTaskId) {
+            return null;
+        }
+        return tasks[taskId];
+    }
+
+    @Override
+    public boolean contains(int taskId) {
+        return get(taskId) != null;
+    }
+
+    @Override
+    public Task put(Task task) throws TaskManagerException {
+        int taskId = task.getTaskId();
+        if (taskId < 0) {
+            throw new TaskManagerException("Can not store Task with negative taskId");
+        }
+        if (taskId >= tasks.length) {
+            tasks = Arrays.copyOf(tasks, Math.max(taskId + 1, tasks.length * 2));
+        }
+        Task previousTask = tasks[taskId];
+        tasks[taskId] = task;
+        if (previousTask == null) {
+            size++;
+        }
+        if (taskId > maxTaskId) {
+            maxTaskId = taskId;
+        }
+        return previousTask;
+    }
+
+    @Override
+    public Task remove(int taskId) {
+        Task previousTask = get(taskId);
+        if (previousTask == null) {
+            return null;
+        }
+        tasks[taskId] = null;
+        size--;
+        while (maxTaskId > 0 && tasks[maxTaskId] == null) {
+            maxTaskId--;
+        }
+        return previousTask;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        tasks = new Task[INITIAL_CAPACITY];
+        size = 0;
+        maxTaskId = 0;
+    }
+
+    @Override
+    public void forEach(Consumer<Task> action) {
+        for (int taskId = 0; taskId <= maxTaskId; taskId++) {
+            if (tasks[taskId] != null) {
+                action.accept(tasks[taskId]);
+            }
+        }
+    }
+
+    @Override
+    public void forEachAfter(int afterTaskId, Predicate<Task> action) {
+        for (int taskId = Math.max(afterTaskId + 1, 0); taskId <= maxTaskId; taskId++) {
+            if (tasks[taskId] != null && !action.test(tasks[taskId])) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package kanban.service;
+
+public enum Durability {
+    FSYNC_PER_COMMIT,
+    GROUP_COMMIT,
+    BEST_EFFORT
+}
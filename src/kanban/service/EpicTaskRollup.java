@@ -0,0 +1,80 @@
+package kanban.service;
+
+import kanban.model.*;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.chrono.ChronoZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+class EpicTaskRollup {
+    private final Map<Integer, SubTaskState> subTaskStates = new HashMap<>();
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private int subTasksWithNoTimePropertiesCount;
+    private final NavigableMap<ZonedDateTime, Integer> startTimes = new TreeMap<>(ChronoZonedDateTime.timeLineOrder());
+    private final NavigableMap<ZonedDateTime, Integer> endTimes = new TreeMap<>(ChronoZonedDateTime.timeLineOrder());
+
+    void addSubTask(Task subTask) {
+        removeSubTask(subTask.getTaskId());
+        SubTaskState state = new SubTaskState(subTask);
+        subTaskStates.put(subTask.getTaskId(), state);
+        statusCounts[state.status.ordinal()]++;
+        if (state.startTime != null) {
+            startTimes.merge(state.startTime, 1, Integer::sum);
+            endTimes.merge(state.endTime, 1, Integer::sum);
+        } else {
+            subTasksWithNoTimePropertiesCount++;
+        }
+    }
+
+    void removeSubTask(int subTaskId) {
+        SubTaskState state = subTaskStates.remove(subTaskId);
+        if (state == null) {
+            return;
+        }
+        statusCounts[state.status.ordinal()]--;
+        if (state.startTime != null) {
+            startTimes.computeIfPresent(state.startTime, (startTime, count) -> count == 1 ? null : count - 1);
+            endTimes.computeIfPresent(state.endTime, (endTime, count) -> count == 1 ? null : count - 1);
+        } else {
+            subTasksWithNoTimePropertiesCount--;
+        }
+    }
+
+    void applyTo(EpicTask epicTask) {
+        int subTasksCount = subTaskStates.size();
+        if (subTasksCount == 0 || statusCounts[TaskStatus.NEW.ordinal()] == subTasksCount) {
+            epicTask.setStatus(TaskStatus.NEW);
+        } else if (statusCounts[TaskStatus.DONE.ordinal()] == subTasksCount) {
+            epicTask.setStatus(TaskStatus.DONE);
+        } else {
+            epicTask.setStatus(TaskStatus.IN_PROGRESS);
+        }
+        if (subTasksCount == 0 || subTasksWithNoTimePropertiesCount > 0) {
+            epicTask.resetTimeProperties();
+        } else {
+            ZonedDateTime startTime = startTimes.firstKey();
+            epicTask.setTimeProperties(startTime, (int) Duration.between(startTime, endTimes.lastKey()).toMinutes());
+        }
+    }
+
+    private static class SubTaskState {
+        private final TaskStatus status;
+        private final ZonedDateTime startTime;
+        private final ZonedDateTime endTime;
+
+        private SubTaskState(Task subTask) {
+            status = subTask.getStatus();
+            if (subTask.areTimePropertiesSet()) {
+                startTime = subTask.getStartTime();
+                endTime = subTask.getEndTime();
+            } else {
+                startTime = null;
+                endTime = null;
+            }
+        }
+    }
+}
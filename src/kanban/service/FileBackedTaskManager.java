@@ -3,62 +3,129 @@ package kanban.service;
 import kanban.exceptions.*;
 import kanban.model.*;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    public static final long DEFAULT_SNAPSHOT_THRESHOLD = 1 << 20;
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 10;
+    private static final Duration ARCHIVAL_CHECK_INTERVAL = Duration.ofHours(1);
+    private static final String CREATE_RECORD = "NEW";
+    private static final String UPDATE_RECORD = "UPD";
+    private static final String DELETE_RECORD = "DEL";
+    private static final String CLEAR_RECORD = "CLR";
+    private static final String VIEW_RECORD = "VIEW";
+    private static final String HISTORY_FILE_SUFFIX = ".history";
+    private static final long HISTORY_FILE_LIMIT = 1 << 16;
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy.HH:mm.VV");
     private final Path backupFile;
+    private SnapshotFormat snapshotFormat;
+    private TaskJournal journal;
+    private TaskArchive archive;
+    private Duration archiveAge;
+    private long historyFileSize;
+    private ZonedDateTime nextArchivalTime;
 
     public FileBackedTaskManager(int nextTaskId, HistoryManager historyManager, Path backupFile) {
-        super(nextTaskId, historyManager);
+        this(nextTaskId, historyManager, backupFile, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(int nextTaskId, HistoryManager historyManager, Path backupFile,
+                                 SnapshotFormat snapshotFormat) {
+        this(nextTaskId, historyManager, backupFile, snapshotFormat, Managers.getDefaultTaskStore());
+    }
+
+    public FileBackedTaskManager(int nextTaskId, HistoryManager historyManager, Path backupFile,
+                                 SnapshotFormat snapshotFormat, TaskStore taskStore) {
+        super(nextTaskId, historyManager, Managers.getDefaultTimetable(), taskStore);
         this.backupFile = backupFile;
+        this.snapshotFormat = snapshotFormat;
     }
 
     @Override
     public List<Task> getAllTasks() throws FileBackedTaskManagerException {
         List<Task> result = super.getAllTasks();
-        save();
+        saveViews(result);
+        return result;
+    }
+
+    @Override
+    public List<Task> getAllTasks(int afterTaskId, int limit)
+            throws TaskManagerException, FileBackedTaskManagerException {
+        List<Task> result = super.getAllTasks(afterTaskId, limit);
+        saveViews(result);
         return result;
     }
 
     @Override
     public void deleteAllTasks() throws FileBackedTaskManagerException {
         super.deleteAllTasks();
-        save();
+        // Segments are dropped before the clear is saved, so a crash in between can not bring archived Tasks back
+        if (archive != null) {
+            archive.clear();
+        }
+        saveClearedTasks();
     }
 
     @Override
     public Task getTaskByTaskId(int taskId) throws TaskManagerException, FileBackedTaskManagerException {
         Task result = super.getTaskByTaskId(taskId);
-        save();
+        saveViews(List.of(result));
         return result;
     }
 
     @Override
     public int createTask(Task task) throws TaskManagerException, FileBackedTaskManagerException {
         int result = super.createTask(task);
-        save();
+        saveTasks(List.of(result), true);
+        return result;
+    }
+
+    @Override
+    public List<Integer> createTasks(List<Task> tasks) throws TaskManagerException, FileBackedTaskManagerException {
+        List<Integer> result = super.createTasks(tasks);
+        saveTasks(result, true);
         return result;
     }
 
     @Override
     public int updateTask(Task task) throws TaskManagerException, FileBackedTaskManagerException {
         int result = super.updateTask(task);
-        save();
+        saveTasks(List.of(result), false);
+        return result;
+    }
+
+    @Override
+    public List<Integer> updateTasks(List<Task> tasks) throws TaskManagerException, FileBackedTaskManagerException {
+        List<Integer> result = super.updateTasks(tasks);
+        saveTasks(result, false);
         return result;
     }
 
     @Override
     public int deleteTaskByTaskId(int taskId) throws TaskManagerException, FileBackedTaskManagerException {
+        Task task = getTaskByTaskIdNoHistory(taskId);
+        List<Integer> subTaskIds = task instanceof EpicTask ? ((EpicTask) task).getSubTasksIds() : List.of();
         int result = super.deleteTaskByTaskId(taskId);
-        save();
+        saveDeletedTask(result, subTaskIds);
         return result;
     }
 
@@ -66,56 +133,385 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public List<SubTask> getAllSubTasksByEpicTaskId(int taskId)
             throws TaskManagerException, FileBackedTaskManagerException {
         List <SubTask> result = super.getAllSubTasksByEpicTaskId(taskId);
-        save();
+        saveViews(result);
         return result;
     }
 
     @Override
     public List<Task> getPrioritizedTasks() throws FileBackedTaskManagerException {
         List<Task> result = super.getPrioritizedTasks();
-        save();
+        saveViews(result);
         return result;
     }
 
+    @Override
+    public TaskPage getPrioritizedTasks(String after, int limit)
+            throws TaskManagerException, FileBackedTaskManagerException {
+        TaskPage result = super.getPrioritizedTasks(after, limit);
+        saveViews(result.getTasks());
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksBetween(ZonedDateTime from, ZonedDateTime to)
+            throws TaskManagerException, FileBackedTaskManagerException {
+        List<Task> result = super.getTasksBetween(from, to);
+        saveViews(result);
+        return result;
+    }
+
+    @Override
+    public List<Task> getUpcomingTasks(ZonedDateTime after, int limit)
+            throws TaskManagerException, FileBackedTaskManagerException {
+        List<Task> result = super.getUpcomingTasks(after, limit);
+        saveViews(result);
+        return result;
+    }
+
+    public void setArchiveAge(Duration archiveAge) {
+        this.archiveAge = archiveAge;
+        nextArchivalTime = null;
+    }
+
+    public List<Integer> archiveTasks(ZonedDateTime before)
+            throws TaskManagerException, FileBackedTaskManagerException {
+        if (before == null) {
+            throw new TaskManagerException("Can not archive Tasks before null");
+        }
+        if (backupFile == null) {
+            throw new FileBackedTaskManagerException("Can not archive Tasks without backup file");
+        }
+        List<Integer> result = moveToArchive(before);
+        if (!result.isEmpty()) {
+            if (journal == null) {
+                save();
+            } else {
+                snapshot();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    Task getArchivedTask(int taskId) throws FileBackedTaskManagerException, InvalidDataException {
+        return archive == null ? null : archive.get(taskId);
+    }
+
+    public CompletableFuture<Void> flush() {
+        if (journal == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return journal.flush();
+    }
+
+    @Override
+    public void close() throws FileBackedTaskManagerException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
     public static FileBackedTaskManager loadFromFile(Path file)
             throws TaskManagerException, FileBackedTaskManagerException, InvalidDataException {
+        return loadFromFile(file, false, false);
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path file, boolean parallelParsing, boolean verify)
+            throws TaskManagerException, FileBackedTaskManagerException, InvalidDataException {
         FileBackedTaskManager manager = new FileBackedTaskManager(1, new InMemoryHistoryManager(), file);
-        try (BufferedReader fileReader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
-            String lineFromFile = fileReader.readLine();
-            if (lineFromFile == null || lineFromFile.isBlank()) {
-                return manager;
-            }
-            int nextId = 1;
-            while (!lineFromFile.isBlank()) {
-                Task task = taskFromString(lineFromFile);
-                manager.setNextTaskId(task.getTaskId());
-                manager.createTaskFromParent(task);
-                if (nextId < task.getTaskId() + 1) {
-                    nextId = task.getTaskId() + 1;
-                }
-                lineFromFile = fileReader.readLine();
-                if (lineFromFile == null) {
-                    throw new ReadFromFileException();
+        manager.readSnapshot(true, parallelParsing, verify);
+        manager.loadArchive();
+        return manager;
+    }
+
+    public static FileBackedTaskManager loadLazily(Path file, int cacheCapacity)
+            throws TaskManagerException, FileBackedTaskManagerException, InvalidDataException {
+        try {
+            if (!BinarySnapshot.isBinarySnapshot(file)) {
+                return loadFromFile(file);
+            }
+            // Only names and descriptions stay in the file. The indexes still hold a skeleton Task for every
+            // record, so startup time and resident memory grow with the whole board, not with the working set
+            BinarySnapshot snapshot = BinarySnapshot.open(file);
+            LazyTaskStore taskStore = new LazyTaskStore(snapshot, cacheCapacity);
+            List<Task> skeletons = new ArrayList<>(snapshot.getTaskCount());
+            while (snapshot.hasNextTask()) {
+                int position = snapshot.position();
+                Task task = snapshot.nextTaskSkeleton();
+                if (task instanceof EpicTask) {
+                    task = snapshot.readTaskAt(position);
+                    taskStore.put(task);
+                } else {
+                    taskStore.putSnapshotTask(task.getTaskId(), position);
                 }
+                skeletons.add(task);
             }
-            manager.setNextTaskId(nextId);
-            lineFromFile = fileReader.readLine();
-            if (lineFromFile == null) {
-                throw new ReadFromFileException();
+            FileBackedTaskManager manager = new FileBackedTaskManager(1, new InMemoryHistoryManager(), file,
+                    SnapshotFormat.BINARY, taskStore);
+            int[] history = manager.readHistoryFile(snapshot.readHistory(), true);
+            manager.restoreIndexes(skeletons, history, snapshot.getNextTaskId());
+            manager.loadArchive();
+            return manager;
+        } catch (IOException exception) {
+            throw new ReadFromFileException();
+        }
+    }
+
+    public static FileBackedTaskManager loadWithJournal(Path file)
+            throws TaskManagerException, FileBackedTaskManagerException, InvalidDataException {
+        return loadWithJournal(file, DEFAULT_SNAPSHOT_THRESHOLD);
+    }
+
+    public static FileBackedTaskManager loadWithJournal(Path file, Durability durability)
+            throws TaskManagerException, FileBackedTaskManagerException, InvalidDataException {
+        return loadWithJournal(file, DEFAULT_SNAPSHOT_THRESHOLD, durability, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    public static FileBackedTaskManager loadWithJournal(Path file, long snapshotThreshold)
+            throws TaskManagerException, FileBackedTaskManagerException, InvalidDataException {
+        return loadWithJournal(file, snapshotThreshold, Durability.GROUP_COMMIT, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    public static FileBackedTaskManager loadWithJournal(Path file, long snapshotThreshold, Durability durability,
+                                                        long commitIntervalMillis)
+            throws TaskManagerException, FileBackedTaskManagerException, InvalidDataException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(1, new InMemoryHistoryManager(), file,
+                SnapshotFormat.BINARY);
+        int generation = Files.exists(file) ? manager.readSnapshot(false, false, false) : 0;
+        try {
+            List<Path> journalFiles = TaskJournal.getJournalFiles(file, generation);
+            for (Path journalFile : journalFiles) {
+                manager.replayJournal(journalFile);
+                generation = TaskJournal.getGeneration(journalFile) + 1;
             }
-            manager.addHistoryFromString(lineFromFile);
         } catch (IOException exception) {
             throw new ReadFromFileException();
         }
+        manager.loadArchive();
+        manager.journal = new TaskJournal(file, generation, snapshotThreshold, durability, commitIntervalMillis);
         return manager;
     }
 
-    void createTaskFromParent(Task task) throws TaskManagerException {
-        super.createTask(task);
+    private int readSnapshot(boolean withHistoryFile, boolean parallelParsing, boolean verify)
+            throws TaskManagerException, FileBackedTaskManagerException, InvalidDataException {
+        try {
+            if (BinarySnapshot.isBinarySnapshot(backupFile)) {
+                snapshotFormat = SnapshotFormat.BINARY;
+                return readBinarySnapshot(withHistoryFile, verify);
+            }
+        } catch (IOException exception) {
+            throw new ReadFromFileException();
+        }
+        snapshotFormat = SnapshotFormat.CSV;
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(backupFile, StandardCharsets.UTF_8);
+        } catch (IOException exception) {
+            throw new ReadFromFileException();
+        }
+        if (lines.isEmpty() || lines.get(0).isBlank()) {
+            return 0;
+        }
+        int tasksCount = 0;
+        while (tasksCount < lines.size() && !lines.get(tasksCount).isBlank()) {
+            tasksCount++;
+        }
+        if (tasksCount + 1 >= lines.size()) {
+            throw new ReadFromFileException();
+        }
+        List<Task> tasks = tasksFromStrings(lines.subList(0, tasksCount), parallelParsing);
+        int[] history = readHistoryFile(historyFromString(lines.get(tasksCount + 1)), withHistoryFile);
+        restoreTasks(tasks, history, 1, verify);
+        if (tasksCount + 2 >= lines.size() || lines.get(tasksCount + 2).isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(lines.get(tasksCount + 2));
+        } catch (NumberFormatException exception) {
+            throw new ReadFromFileException();
+        }
+    }
+
+    private int readBinarySnapshot(boolean withHistoryFile, boolean verify)
+            throws TaskManagerException, FileBackedTaskManagerException, InvalidDataException {
+        try {
+            BinarySnapshot snapshot = BinarySnapshot.open(backupFile);
+            List<Task> tasks = new ArrayList<>(snapshot.getTaskCount());
+            while (snapshot.hasNextTask()) {
+                tasks.add(snapshot.nextTask());
+            }
+            int[] history = readHistoryFile(snapshot.readHistory(), withHistoryFile);
+            restoreTasks(tasks, history, snapshot.getNextTaskId(), verify);
+            return snapshot.getGeneration();
+        } catch (IOException exception) {
+            throw new ReadFromFileException();
+        }
     }
 
-    void save() throws SaveToFileException {
-        try (BufferedWriter fileWriter = Files.newBufferedWriter(backupFile, StandardCharsets.UTF_8)) {
+    private void loadArchive() throws FileBackedTaskManagerException, InvalidDataException {
+        archive = new TaskArchive(backupFile);
+        List<Task> archivedTasks = new ArrayList<>();
+        int maxTaskId = 0;
+        for (Task task : archive.load()) {
+            // A crash between writing a segment and the next snapshot leaves the Task in both places
+            if (getTaskByTaskIdNoHistory(task.getTaskId()) != null) {
+                archive.forget(task.getTaskId());
+                continue;
+            }
+            archivedTasks.add(task);
+            maxTaskId = Math.max(maxTaskId, task.getTaskId());
+        }
+        restoreArchivedIntervals(archivedTasks);
+        setNextTaskId(Math.max(peekNextTaskId(), maxTaskId + 1));
+    }
+
+    private List<Integer> moveToArchive(ZonedDateTime before) throws FileBackedTaskManagerException {
+        List<Task> archivedTasks = findArchivableTasks(before);
+        if (archivedTasks.isEmpty()) {
+            return List.of();
+        }
+        if (archive == null) {
+            // A manager that was not loaded replaces the board in backupFile, so older segments are dropped
+            archive = new TaskArchive(backupFile);
+            archive.clear();
+        }
+        archive.write(archivedTasks);
+        detachArchivedTasks(archivedTasks);
+        return archivedTasks.stream().map(Task::getTaskId).collect(Collectors.toList());
+    }
+
+    private void archiveExpiredTasks() throws FileBackedTaskManagerException {
+        if (archiveAge == null || backupFile == null) {
+            return;
+        }
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+        if (nextArchivalTime != null && now.isBefore(nextArchivalTime)) {
+            return;
+        }
+        nextArchivalTime = now.plus(ARCHIVAL_CHECK_INTERVAL);
+        moveToArchive(now.minus(archiveAge));
+    }
+
+    private int[] readHistoryFile(int[] history, boolean withHistoryFile)
+            throws ReadFromFileException, InvalidDataException {
+        Path historyFile = getHistoryFile();
+        if (!withHistoryFile || !Files.exists(historyFile)) {
+            return history;
+        }
+        String views;
+        try {
+            views = Files.readString(historyFile, StandardCharsets.UTF_8);
+        } catch (IOException exception) {
+            throw new ReadFromFileException();
+        }
+        historyFileSize = views.length();
+        // The history file logs views made since the snapshot, a torn last line is dropped
+        return applyViews(history, views.substring(0, views.lastIndexOf('\n') + 1));
+    }
+
+    static int[] applyViews(int[] history, String views) throws InvalidDataException {
+        Set<Integer> result = new LinkedHashSet<>();
+        for (int taskId : history) {
+            result.add(taskId);
+        }
+        for (String line : views.split("\n")) {
+            for (int taskId : historyFromString(line.strip())) {
+                result.remove(taskId);
+                result.add(taskId);
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void replayJournal(Path journalFile) throws IOException, InvalidDataException {
+        String journalContent = Files.readString(journalFile, StandardCharsets.UTF_8);
+        List<String> records = journalContent.lines().collect(Collectors.toList());
+        if (!journalContent.isEmpty() && !journalContent.endsWith("\n")) {
+            records.remove(records.size() - 1);
+        }
+        int nextId = peekNextTaskId();
+        for (String record : records) {
+            try {
+                nextId = replayRecord(record, nextId);
+            } catch (RuntimeException exception) {
+                throw new InvalidDataException("Could not read journal record from String");
+            }
+        }
+        setNextTaskId(nextId);
+    }
+
+    private int replayRecord(String record, int nextId) throws TaskManagerException, InvalidDataException {
+        String[] parts = record.split(",", 2);
+        switch (parts[0]) {
+            case CREATE_RECORD: {
+                List<Task> tasks = decodeTasks(parts[1]);
+                setNextTaskId(tasks.get(0).getTaskId());
+                super.createTasks(tasks);
+                return Math.max(nextId, tasks.get(tasks.size() - 1).getTaskId() + 1);
+            }
+            case UPDATE_RECORD: {
+                List<Task> tasks = decodeTasks(parts[1]);
+                for (Task task : tasks) {
+                    if (task instanceof EpicTask) {
+                        Task storedTask = getTaskByTaskIdNoHistory(task.getTaskId());
+                        ((EpicTask) storedTask).getSubTasksIdsView().forEach(((EpicTask) task)::addSubTaskId);
+                        if (storedTask.areTimePropertiesSet()) {
+                            task.setTimeProperties(storedTask.getStartTime(), storedTask.getDuration());
+                        }
+                    }
+                }
+                super.updateTasks(tasks);
+                return nextId;
+            }
+            case DELETE_RECORD: {
+                int taskId = Integer.parseInt(parts[1]);
+                if (getTaskByTaskIdNoHistory(taskId) != null) {
+                    super.deleteTaskByTaskId(taskId);
+                }
+                return nextId;
+            }
+            case CLEAR_RECORD: {
+                super.deleteAllTasks();
+                return nextId;
+            }
+            case VIEW_RECORD: {
+                for (String taskId : parts[1].split(",")) {
+                    if (getTaskByTaskIdNoHistory(Integer.parseInt(taskId)) != null) {
+                        super.getTaskByTaskId(Integer.parseInt(taskId));
+                    }
+                }
+                return nextId;
+            }
+            default:
+                throw new InvalidDataException("Could not read journal record from String");
+        }
+    }
+
+    void save() throws FileBackedTaskManagerException {
+        archiveExpiredTasks();
+        // The history file only holds views made after the current snapshot, so it must go before the snapshot does
+        try {
+            Files.deleteIfExists(getHistoryFile());
+            historyFileSize = 0;
+        } catch (IOException exception) {
+            throw new SaveToFileException();
+        }
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            // A lazily loaded snapshot stays mapped, so it is replaced by a rename and never truncated in place
+            Path temporaryFile = backupFile.resolveSibling(backupFile.getFileName() + ".tmp");
+            try {
+                BinarySnapshot.write(temporaryFile, encodeSnapshot(0), false);
+                replaceFile(temporaryFile, backupFile);
+            } catch (IOException exception) {
+                throw new SaveToFileException();
+            }
+        } else {
+            exportToCsv(backupFile);
+        }
+    }
+
+    public void exportToCsv(Path file) throws SaveToFileException {
+        try (BufferedWriter fileWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
             for (Task task : getAllTasksNoHistory()) {
                 fileWriter.write(toString(task));
                 fileWriter.newLine();
@@ -123,7 +519,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             fileWriter.newLine();
             String history = historyToString();
             if (!history.isEmpty()) {
-                fileWriter.write(historyToString());
+                fileWriter.write(history);
             } else {
                 fileWriter.newLine();
             }
@@ -132,6 +528,112 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
+    void saveHistory(List<? extends Task> viewedTasks) throws FileBackedTaskManagerException {
+        if (historyFileSize >= HISTORY_FILE_LIMIT) {
+            save();
+            return;
+        }
+        String views = viewedTasks.stream().map(task -> String.valueOf(task.getTaskId()))
+                .collect(Collectors.joining(",", "", "\n"));
+        try {
+            Files.writeString(getHistoryFile(), views, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException exception) {
+            throw new SaveToFileException();
+        }
+        historyFileSize += views.length();
+    }
+
+    static void replaceFile(Path temporaryFile, Path file) throws IOException {
+        try {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path getHistoryFile() {
+        return backupFile.resolveSibling(backupFile.getFileName() + HISTORY_FILE_SUFFIX);
+    }
+
+    void saveTasks(List<Integer> taskIds, boolean created) throws FileBackedTaskManagerException {
+        if (journal == null) {
+            save();
+            return;
+        }
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        // A batch is one record, so replay applies it whole and through the same batch checks
+        StringBuilder record = new StringBuilder(created ? CREATE_RECORD : UPDATE_RECORD);
+        for (int taskId : taskIds) {
+            // Tasks go in the binary snapshot encoding, so commas and line breaks in names can not split a record
+            byte[] task = BinarySnapshot.encodeTask(getTaskByTaskIdNoHistory(taskId));
+            record.append(",").append(Base64.getEncoder().encodeToString(task));
+        }
+        journal.append(record.toString());
+        snapshotIfNeeded();
+    }
+
+    private static List<Task> decodeTasks(String record) {
+        List<Task> tasks = new ArrayList<>();
+        for (String task : record.split(",")) {
+            tasks.add(BinarySnapshot.decodeTask(Base64.getDecoder().decode(task)));
+        }
+        return tasks;
+    }
+
+    private void saveViews(List<? extends Task> viewedTasks) throws FileBackedTaskManagerException {
+        if (viewedTasks.isEmpty()) {
+            return;
+        }
+        if (journal == null) {
+            saveHistory(viewedTasks);
+            return;
+        }
+        StringBuilder record = new StringBuilder(VIEW_RECORD);
+        for (Task task : viewedTasks) {
+            record.append(",").append(task.getTaskId());
+        }
+        journal.append(record.toString());
+        snapshotIfNeeded();
+    }
+
+    void saveDeletedTask(int taskId, List<Integer> subTaskIds) throws FileBackedTaskManagerException {
+        saveRecord(DELETE_RECORD + "," + taskId);
+    }
+
+    void saveClearedTasks() throws FileBackedTaskManagerException {
+        saveRecord(CLEAR_RECORD);
+    }
+
+    private void saveRecord(String record) throws FileBackedTaskManagerException {
+        if (journal == null) {
+            save();
+            return;
+        }
+        journal.append(record);
+        snapshotIfNeeded();
+    }
+
+    private void snapshotIfNeeded() throws FileBackedTaskManagerException {
+        if (journal.needsSnapshot()) {
+            snapshot();
+        }
+    }
+
+    private void snapshot() throws FileBackedTaskManagerException {
+        archiveExpiredTasks();
+        int snapshotGeneration = journal.getGeneration() + 1;
+        ByteBuffer snapshot = encodeSnapshot(snapshotGeneration);
+        journal.rotate();
+        journal.writeSnapshotInBackground(snapshot, snapshotGeneration);
+    }
+
+    private ByteBuffer encodeSnapshot(int generation) {
+        return BinarySnapshot.encode(getAllTasksNoHistory(), getHistory(), generation, peekNextTaskId());
+    }
+
     static String toString(Task task) {
         StringBuilder result = new StringBuilder(task.getTaskId() + ",");
         if (task instanceof EpicTask) {
@@ -147,7 +649,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                 result.append(",null,0");
             } else {
                 result.append(",")
-                        .append(task.getStartTime().format(DateTimeFormatter.ofPattern("dd.MM.yyyy.HH:mm.VV")))
+                        .append(task.getStartTime().format(DATE_TIME_FORMATTER))
                         .append(",")
                         .append(task.getDuration());
             }
@@ -180,7 +682,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             if (!(task instanceof EpicTask)) {
                 if (!(parts[5].equals("null"))) {
                     task.setTimeProperties(
-                            ZonedDateTime.parse(parts[5], DateTimeFormatter.ofPattern("dd.MM.yyyy.HH:mm.VV")),
+                            ZonedDateTime.parse(parts[5], DATE_TIME_FORMATTER),
                             Integer.parseInt(parts[6])
                     );
                 }
@@ -202,17 +704,30 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return result.toString();
     }
 
-    void addHistoryFromString(String value) throws InvalidDataException {
+    static List<Task> tasksFromStrings(List<String> values, boolean parallelParsing) throws InvalidDataException {
+        if (parallelParsing) {
+            return values.parallelStream().map(FileBackedTaskManager::taskFromString).collect(Collectors.toList());
+        }
+        List<Task> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(taskFromString(value));
+        }
+        return result;
+    }
+
+    static int[] historyFromString(String value) throws InvalidDataException {
         if (value.isEmpty()) {
-            return;
+            return new int[0];
         }
         String[] taskIds = value.split(",");
+        int[] result = new int[taskIds.length];
         try {
-            for (String taskId : taskIds) {
-                super.getTaskByTaskId(Integer.parseInt(taskId));
+            for (int i = 0; i < taskIds.length; i++) {
+                result[i] = Integer.parseInt(taskIds[i]);
             }
-        } catch (Exception exception) {
+        } catch (NumberFormatException exception) {
             throw new InvalidDataException("Could not read history from String");
         }
+        return result;
     }
-}
\ No newline at end of file
+}
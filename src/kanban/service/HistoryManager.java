@@ -3,10 +3,13 @@ package kanban.service;
 import java.util.List;
 
 import kanban.model.Task;
+import kanban.model.TaskPage;
 
 public interface HistoryManager {
     List<Task> getHistory();
 
+    TaskPage getHistory(String after, int limit);
+
     void add(Task task);
 
     void remove(int taskId);
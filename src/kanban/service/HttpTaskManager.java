@@ -1,14 +1,36 @@
 package kanban.service;
 
 import kanban.exceptions.HttpTaskManagerException;
+import kanban.exceptions.InvalidDataException;
 import kanban.model.*;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class HttpTaskManager extends FileBackedTaskManager {
+    public static final int PAGE_SIZE = 128;
     private final KVTaskClient client;
     private final static String TASK_DIVIDER = "/nxtTsk/";
+    private final static String TASKS_KEY = "tasks";
+    private final static String PAGE_KEY_PREFIX = "page.";
+    private final static String HISTORY_KEY = "history";
+    private final static String HISTORY_VIEWS_KEY = "history.views";
+    private final static int HISTORY_VIEWS_LIMIT = 256;
+    private final static String EMPTY_VALUE = "empty";
+    private final static int PAGE_SCAN_LIMIT = 16;
+    private final static int PARALLEL_PARSING_THRESHOLD = 10_000;
+    private final NavigableSet<Integer> syncedTaskIds = new TreeSet<>();
+    // Views made since the history key was last written, kept under their own key so a read does not resend it
+    private final List<Integer> unsavedViews = new ArrayList<>();
+
     public HttpTaskManager(URL url) throws IOException, InterruptedException {
         super(1, Managers.getDefaultHistory(), null);
         client = new KVTaskClient(url);
@@ -17,51 +39,172 @@ public class HttpTaskManager extends FileBackedTaskManager {
 
     private void loadFromServer(){
         try {
-            String tasksString = client.load("tasks");
-            if (tasksString.isBlank() || tasksString.equals("empty")) {
-                return;
-            }
-            String[] tasksStringParts = tasksString.split(TASK_DIVIDER);
-            int nextId = 1;
-            for (String taskString : tasksStringParts) {
-                Task task = taskFromString(taskString);
-                setNextTaskId(task.getTaskId());
-                createTaskFromParent(task);
-                if (nextId < task.getTaskId() + 1) {
-                    nextId = task.getTaskId() + 1;
+            Map<String, String> values = client.loadAll(List.of(HISTORY_KEY, HISTORY_VIEWS_KEY, TASKS_KEY));
+            List<String> taskStrings = new ArrayList<>();
+            String lastPageKey = "";
+            Map<String, String> pages;
+            do {
+                pages = client.scan(PAGE_KEY_PREFIX, lastPageKey, PAGE_SCAN_LIMIT);
+                for (Map.Entry<String, String> page : pages.entrySet()) {
+                    if (!page.getValue().equals(EMPTY_VALUE)) {
+                        taskStrings.addAll(Arrays.asList(page.getValue().split(TASK_DIVIDER)));
+                    }
+                    lastPageKey = page.getKey();
                 }
+            } while (pages.size() == PAGE_SCAN_LIMIT);
+            boolean isLegacyLayout = lastPageKey.isEmpty();
+            if (isLegacyLayout) {
+                taskStrings = loadLegacyTaskStrings(values);
             }
-            setNextTaskId(nextId);
-            String history = client.load("history");
-            if (history.isBlank() || history.equals("empty")) {
+            if (taskStrings.isEmpty()) {
                 return;
             }
-            addHistoryFromString(history);
+            List<Task> tasks = tasksFromStrings(taskStrings, taskStrings.size() >= PARALLEL_PARSING_THRESHOLD);
+            String history = values.getOrDefault(HISTORY_KEY, "");
+            if (history.isBlank() || history.equals(EMPTY_VALUE)) {
+                history = "";
+            }
+            String views = values.getOrDefault(HISTORY_VIEWS_KEY, "");
+            if (views.isBlank() || views.equals(EMPTY_VALUE)) {
+                views = "";
+            }
+            for (int taskId : historyFromString(views)) {
+                unsavedViews.add(taskId);
+            }
+            restoreTasks(tasks, applyViews(historyFromString(history), views), 1, true);
+            for (Task task : tasks) {
+                syncedTaskIds.add(task.getTaskId());
+            }
+            if (isLegacyLayout) {
+                save();
+            }
         } catch (IOException | InterruptedException exception) {
             throw new HttpTaskManagerException("Could not load manager state due to server issues");
+        } catch (InvalidDataException exception) {
+            throw new HttpTaskManagerException("Could not load manager state due to invalid data on server");
+        }
+    }
+
+    private List<String> loadLegacyTaskStrings(Map<String, String> values) {
+        List<String> result = new ArrayList<>();
+        String tasksString = values.getOrDefault(TASKS_KEY, "");
+        if (!tasksString.isBlank() && !tasksString.equals(EMPTY_VALUE)) {
+            result.addAll(Arrays.asList(tasksString.split(TASK_DIVIDER)));
         }
+        return result;
     }
 
     @Override
     void save() {
-        StringBuilder stringBuilder = new StringBuilder();
+        Set<Integer> pages = new TreeSet<>();
+        for (int taskId : syncedTaskIds) {
+            pages.add(getPage(taskId));
+        }
+        syncedTaskIds.clear();
         for (Task task : getAllTasksNoHistory()) {
-            stringBuilder.append(toString(task)).append(TASK_DIVIDER);
+            syncedTaskIds.add(task.getTaskId());
+            pages.add(getPage(task.getTaskId()));
         }
-        String tasks = stringBuilder.toString();
-        String history = historyToString();
-        try {
-            if (tasks.isBlank()) {
-                client.put("tasks", "empty");
-            } else {
-                client.put("tasks", tasks);
-            } if (history.isBlank()) {
-                client.put("history", "empty");
+        savePages(pages, true);
+    }
+
+    @Override
+    void saveTasks(List<Integer> taskIds, boolean created) {
+        Set<Integer> pages = new TreeSet<>();
+        for (int taskId : taskIds) {
+            syncedTaskIds.add(taskId);
+            pages.add(getPage(taskId));
+        }
+        savePages(pages, false);
+    }
+
+    @Override
+    void saveDeletedTask(int taskId, List<Integer> subTaskIds) {
+        Set<Integer> pages = new TreeSet<>();
+        syncedTaskIds.remove(taskId);
+        pages.add(getPage(taskId));
+        for (int subTaskId : subTaskIds) {
+            syncedTaskIds.remove(subTaskId);
+            pages.add(getPage(subTaskId));
+        }
+        savePages(pages, true);
+    }
+
+    @Override
+    void saveClearedTasks() {
+        Set<Integer> pages = new TreeSet<>();
+        for (int taskId : syncedTaskIds) {
+            pages.add(getPage(taskId));
+        }
+        syncedTaskIds.clear();
+        savePages(pages, true);
+    }
+
+    @Override
+    void saveHistory(List<? extends Task> viewedTasks) {
+        if (unsavedViews.size() + viewedTasks.size() > HISTORY_VIEWS_LIMIT) {
+            putAll(getHistoryValues());
+            return;
+        }
+        for (Task task : viewedTasks) {
+            unsavedViews.add(task.getTaskId());
+        }
+        StringBuilder views = new StringBuilder();
+        for (int taskId : unsavedViews) {
+            views.append(taskId).append(",");
+        }
+        putAll(Map.of(HISTORY_VIEWS_KEY, views.deleteCharAt(views.length() - 1).toString()));
+    }
+
+    private void savePages(Set<Integer> pages, boolean withHistory) {
+        Map<String, String> values = new LinkedHashMap<>();
+        List<String> emptyPageKeys = new ArrayList<>();
+        for (int page : pages) {
+            StringBuilder value = new StringBuilder();
+            for (int taskId : syncedTaskIds.subSet(page * PAGE_SIZE, (page + 1) * PAGE_SIZE)) {
+                value.append(toString(getTaskByTaskIdNoHistory(taskId))).append(TASK_DIVIDER);
+            }
+            if (value.length() == 0) {
+                emptyPageKeys.add(getPageKey(page));
             } else {
-                client.put("history", history);
+                values.put(getPageKey(page), value.toString());
+            }
+        }
+        if (withHistory) {
+            values.putAll(getHistoryValues());
+        }
+        try {
+            if (!values.isEmpty()) {
+                client.putAll(values);
+            }
+            // Empty pages are removed rather than stored, so a scan only downloads pages that hold Tasks
+            if (!emptyPageKeys.isEmpty()) {
+                client.deleteAll(emptyPageKeys);
             }
         } catch (IOException | InterruptedException exception) {
             throw new HttpTaskManagerException("Could not save manager state due to server issues");
         }
     }
-}
\ No newline at end of file
+
+    private Map<String, String> getHistoryValues() {
+        unsavedViews.clear();
+        String history = historyToString();
+        return Map.of(HISTORY_KEY, history.isBlank() ? EMPTY_VALUE : history, HISTORY_VIEWS_KEY, EMPTY_VALUE);
+    }
+
+    private void putAll(Map<String, String> values) {
+        try {
+            client.putAll(values);
+        } catch (IOException | InterruptedException exception) {
+            throw new HttpTaskManagerException("Could not save manager state due to server issues");
+        }
+    }
+
+    static int getPage(int taskId) {
+        return taskId / PAGE_SIZE;
+    }
+
+    static String getPageKey(int page) {
+        return String.format("%s%010d", PAGE_KEY_PREFIX, page);
+    }
+}
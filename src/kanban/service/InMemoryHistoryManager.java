@@ -3,15 +3,22 @@ package kanban.service;
 import kanban.exceptions.HistoryManagerException;
 import kanban.model.Node;
 import kanban.model.Task;
+import kanban.model.TaskPage;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 public class InMemoryHistoryManager implements HistoryManager{
     private final Map<Integer, Node<Task>> watchedTasks = new HashMap<>();
     private Node<Task> head;
     private Node<Task> tail;
+    // Every view gets a new position, so a page cursor stays valid after its Task is viewed again or removed
+    private final NavigableMap<Long, Node<Task>> nodesByPosition = new TreeMap<>();
+    private final Map<Integer, Long> positions = new HashMap<>();
+    private long lastPosition;
 
     @Override
     public List<Task> getHistory() {
@@ -24,6 +31,31 @@ public class InMemoryHistoryManager implements HistoryManager{
         return history;
     }
 
+    @Override
+    public TaskPage getHistory(String after, int limit) throws HistoryManagerException {
+        if (limit <= 0) {
+            throw new HistoryManagerException("Number of Tasks must be positive");
+        }
+        long afterPosition = 0;
+        if (after != null && !after.isEmpty()) {
+            try {
+                afterPosition = Long.parseLong(after);
+            } catch (NumberFormatException exception) {
+                throw new HistoryManagerException("Could not read page cursor");
+            }
+        }
+        ArrayList<Task> history = new ArrayList<>();
+        long nextPosition = 0;
+        for (Map.Entry<Long, Node<Task>> entry : nodesByPosition.tailMap(afterPosition, false).entrySet()) {
+            if (history.size() == limit) {
+                break;
+            }
+            history.add(entry.getValue().getValue());
+            nextPosition = entry.getKey();
+        }
+        return new TaskPage(history, history.isEmpty() ? null : String.valueOf(nextPosition));
+    }
+
     @Override
     public void add(Task task) throws HistoryManagerException {
         if (task == null) {
@@ -37,12 +69,19 @@ public class InMemoryHistoryManager implements HistoryManager{
     public void remove(int taskId) {
         removeNode(watchedTasks.getOrDefault(taskId, null));
         watchedTasks.remove(taskId);
+        Long position = positions.remove(taskId);
+        if (position != null) {
+            nodesByPosition.remove(position);
+        }
     }
 
     @Override
     public void clear() {
         head = null;
         tail = null;
+        watchedTasks.clear();
+        nodesByPosition.clear();
+        positions.clear();
     }
 
     private void linkLast(Task task) {
@@ -55,6 +94,11 @@ public class InMemoryHistoryManager implements HistoryManager{
         }
         tail = newNode;
         watchedTasks.put(task.getTaskId(), newNode);
+        Long oldPosition = positions.put(task.getTaskId(), ++lastPosition);
+        if (oldPosition != null) {
+            nodesByPosition.remove(oldPosition);
+        }
+        nodesByPosition.put(lastPosition, newNode);
     }
 
     private void removeNode (Node<Task> node) {
@@ -3,17 +3,21 @@ package kanban.service;
 import kanban.model.*;
 import kanban.exceptions.*;
 
-import java.time.Duration;
+import java.time.DateTimeException;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.*;
 
 public class InMemoryTaskManager implements TaskManager {
+    private static final String TIMED_CURSOR = "t";
+    private static final String UNTIMED_CURSOR = "u";
+    private static final String EPIC_CURSOR = "e";
     private int nextTaskId;
     private final HistoryManager historyManager;
-    private final Map<Integer, Task> tasks = new HashMap<>();
+    private final TaskStore tasks;
 
-    private final SortedSet<Task> sortedByStartTimeTasks = new TreeSet<>((task1, task2) -> {
+    private final NavigableSet<Task> sortedByStartTimeTasks = new TreeSet<>((task1, task2) -> {
             if (task1.getStartTime().isBefore(task2.getStartTime())) {
                 return -1;
             } else if (task2.getStartTime().isBefore(task1.getStartTime())) {
@@ -22,9 +26,12 @@ public class InMemoryTaskManager implements TaskManager {
                 return 0;
             }
         });
-    private final Set<Task> tasksWithNoTimeProperties = new HashSet<>();
-    private final Set<EpicTask> epicTasks = new HashSet<>();
-    private final static ZonedDateTime START_TIME = ZonedDateTime.of(
+    private final NavigableSet<Task> tasksWithNoTimeProperties =
+            new TreeSet<>(Comparator.comparingInt(Task::getTaskId));
+    private final NavigableSet<EpicTask> epicTasks = new TreeSet<>(Comparator.comparingInt(Task::getTaskId));
+    private final Map<Integer, EpicTaskRollup> epicTaskRollups = new HashMap<>();
+    private final ArchivedIntervals archivedIntervals = new ArchivedIntervals();
+    final static ZonedDateTime START_TIME = ZonedDateTime.of(
             2023,
             1,
             1,
@@ -34,14 +41,22 @@ public class InMemoryTaskManager implements TaskManager {
             0,
             ZoneId.of("UTC")
     );
-    private ZonedDateTime endTime = START_TIME.plusYears(1);
-    private final static int TIME_INTERVAL_LENGTH = 15;
-    private final Map<TimeInterval, List<OccupiedTimeInterval<Integer>>> timetable = new HashMap<>();
+    private final Timetable timetable;
 
     public InMemoryTaskManager(int nextTaskId, HistoryManager historyManager) {
+        this(nextTaskId, historyManager, Managers.getDefaultTimetable());
+    }
+
+    public InMemoryTaskManager(int nextTaskId, HistoryManager historyManager, Timetable timetable) {
+        this(nextTaskId, historyManager, timetable, Managers.getDefaultTaskStore());
+    }
+
+    public InMemoryTaskManager(int nextTaskId, HistoryManager historyManager, Timetable timetable,
+                               TaskStore taskStore) {
         this.nextTaskId = nextTaskId;
         this.historyManager = historyManager;
-        initiateTimetable();
+        this.timetable = timetable;
+        this.tasks = taskStore;
     }
 
     @Override
@@ -53,6 +68,20 @@ public class InMemoryTaskManager implements TaskManager {
         return result;
     }
 
+    @Override
+    public List<Task> getAllTasks(int afterTaskId, int limit) throws TaskManagerException {
+        checkPageLimit(limit);
+        List<Task> result = new ArrayList<>();
+        tasks.forEachAfter(afterTaskId, task -> {
+            result.add(task);
+            return result.size() < limit;
+        });
+        for (Task task : result) {
+            historyManager.add(task);
+        }
+        return result;
+    }
+
     @Override
     public void deleteAllTasks() {
         tasks.clear();
@@ -60,15 +89,20 @@ public class InMemoryTaskManager implements TaskManager {
         sortedByStartTimeTasks.clear();
         tasksWithNoTimeProperties.clear();
         epicTasks.clear();
+        epicTaskRollups.clear();
         timetable.clear();
-        endTime = START_TIME.plusYears(1);
-        initiateTimetable();
+        archivedIntervals.clear();
     }
 
     @Override
     public Task getTaskByTaskId(int taskId) throws TaskManagerException {
-        if (!tasks.containsKey(taskId)) {
-            throw new NoSuchTaskException("There is no Task with such taskId");
+        if (!tasks.contains(taskId)) {
+            Task archivedTask = getArchivedTask(taskId);
+            if (archivedTask == null) {
+                throw new NoSuchTaskException("There is no Task with such taskId");
+            }
+            historyManager.add(archivedTask);
+            return archivedTask;
         }
         Task task = tasks.get(taskId);
         historyManager.add(task);
@@ -77,114 +111,113 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public int createTask(Task task) throws TaskManagerException {
-        if (task == null) {
-            throw new TaskManagerException("Can not create null Task");
-        }
-        if (task.areTimePropertiesSet() && task.getStartTime().isBefore(START_TIME)) {
-            throw new TaskManagerException("Can not create Task with startTime in the Past");
-        }
+        checkTaskToCreate(task, Collections.emptyMap());
         if (!(task instanceof EpicTask)) {
-            if (task.areTimePropertiesSet() && !isTaskTimeValid(task)) {
+            if (task.areTimePropertiesSet() && !isTaskTimeValid(task, null)) {
                 throw new TaskTimeException("Task intersects with other existing tasks");
             }
         }
-        if (task instanceof SubTask) {
-            SubTask subTask = (SubTask) task;
-            int masterTaskId = subTask.getMasterTaskId();
-            if (!tasks.containsKey(masterTaskId)) {
-                throw new NoSuchTaskException("There is no Task with such masterTaskId");
-            }
-            if (!(tasks.get(masterTaskId) instanceof EpicTask)) {
-                throw new TaskTypeMismatchException("Task with such masterTaskId is not an EpicTask");
-            }
-            subTask.setTaskId(getNextTaskId());
-            subTask.changeZoneId(ZoneId.of("UTC"));
-            tasks.put(subTask.getTaskId(), subTask);
-            addTaskToTimetable(subTask);
-            addToPrioritizedSet(subTask);
-            EpicTask masterTask = (EpicTask) tasks.get(masterTaskId);
-            masterTask.addSubTaskId(subTask.getTaskId());
-            updateEpicTaskStatus(masterTask);
-            updateEpicTaskTimeProperties(masterTask);
-            return subTask.getTaskId();
+        int masterTaskId = addCreatedTask(task);
+        if (masterTaskId != 0) {
+            updateEpicTask((EpicTask) tasks.get(masterTaskId));
         }
-        if (task instanceof EpicTask) {
-            if (((EpicTask) task).hasSubTasks()) {
-                throw new TaskManagerException("EpicTask mast not have SubTasks");
+        return task.getTaskId();
+    }
+
+    @Override
+    public List<Integer> createTasks(List<Task> tasks) throws TaskManagerException {
+        if (tasks == null) {
+            throw new TaskManagerException("Can not create null list of Tasks");
+        }
+        Map<Integer, Task> createdTasks = new HashMap<>();
+        int createdTaskId = nextTaskId;
+        for (Task task : tasks) {
+            checkTaskToCreate(task, createdTasks);
+            createdTasks.put(createdTaskId++, task);
+        }
+        checkTasksDoNotIntersect(tasks);
+        for (Task task : tasks) {
+            if (!(task instanceof EpicTask) && task.areTimePropertiesSet() && !isTaskTimeValid(task, null)) {
+                throw new TaskTimeException("Task intersects with other existing tasks");
             }
-            if (task.areTimePropertiesSet()) {
-                throw new TaskManagerException("EpicTask mast not have TimePropertiesSet");
+        }
+        List<Integer> result = new ArrayList<>();
+        Set<Integer> masterTaskIds = new LinkedHashSet<>();
+        for (Task task : tasks) {
+            int masterTaskId = addCreatedTask(task);
+            if (masterTaskId != 0) {
+                masterTaskIds.add(masterTaskId);
             }
+            result.add(task.getTaskId());
         }
-        task.setTaskId(getNextTaskId());
-        task.changeZoneId(ZoneId.of("UTC"));
-        tasks.put(task.getTaskId(), task);
-        addTaskToTimetable(task);
-        addToPrioritizedSet(task);
-        return task.getTaskId();
+        for (Integer masterTaskId : masterTaskIds) {
+            updateEpicTask((EpicTask) this.tasks.get(masterTaskId));
+        }
+        return result;
     }
 
     @Override
     public int updateTask(Task task) throws TaskManagerException {
-        if (task == null) {
-            throw new TaskManagerException("Can not update null Task");
-        }
-        if (task.areTimePropertiesSet() && task.getStartTime().isBefore(START_TIME)) {
-            throw new TaskManagerException("Can not update Task with startTime in the Past");
-        }
+        checkTaskToUpdate(task);
         if (!(task instanceof EpicTask)) {
-            if (task.areTimePropertiesSet() && !isTaskTimeValid(task)) {
+            if (task.areTimePropertiesSet() && !isTaskTimeValid(task, tasks.get(task.getTaskId()))) {
                 throw new TaskTimeException("Updated Task intersects with other existing tasks");
             }
         }
-        if (!tasks.containsKey(task.getTaskId())) {
-            throw new NoSuchTaskException("There is no such task");
-        }
-        if (task.getClass() != tasks.get(task.getTaskId()).getClass()) {
-            throw new TaskTypeMismatchException("Updated task and original task have different types");
+        timetable.removeTask(tasks.get(task.getTaskId()));
+        removeFromPrioritizedSet(tasks.get(task.getTaskId()));
+        int masterTaskId = addUpdatedTask(task);
+        if (masterTaskId != 0) {
+            updateEpicTask((EpicTask) tasks.get(masterTaskId));
         }
-        if (task instanceof SubTask) {
-            SubTask subTask = (SubTask) task;
-            if (subTask.getMasterTaskId() != ((SubTask) tasks.get(subTask.getTaskId())).getMasterTaskId()) {
-                throw new TaskManagerException("Updated task and original task have different masterTaskIds");
+        return task.getTaskId();
+    }
+
+    @Override
+    public List<Integer> updateTasks(List<Task> tasks) throws TaskManagerException {
+        if (tasks == null) {
+            throw new TaskManagerException("Can not update null list of Tasks");
+        }
+        Set<Integer> updatedTaskIds = new HashSet<>();
+        for (Task task : tasks) {
+            checkTaskToUpdate(task);
+            if (!updatedTaskIds.add(task.getTaskId())) {
+                throw new TaskManagerException("Can not update the same Task twice in one batch");
             }
-            subTask.changeZoneId(ZoneId.of("UTC"));
-            removeFromPrioritizedSet(tasks.get(subTask.getTaskId()));
-            removeTaskFromTimetable(tasks.get(subTask.getTaskId()));
-            tasks.put(subTask.getTaskId(), subTask);
-            addToPrioritizedSet(subTask);
-            addTaskToTimetable(subTask);
-            updateEpicTaskStatus((EpicTask) tasks.get(subTask.getMasterTaskId()));
-            updateEpicTaskTimeProperties((EpicTask) tasks.get(subTask.getMasterTaskId()));
-            return subTask.getTaskId();
         }
-        if (task instanceof EpicTask) {
-            EpicTask updatedEpicTask = (EpicTask) task;
-            EpicTask originalEpicTask = (EpicTask) tasks.get(updatedEpicTask.getTaskId());
-            if (updatedEpicTask.getSubTasksIds().size() != originalEpicTask.getSubTasksIds().size()) {
-                throw new TaskManagerException("Updated task and original task have different number of subTaskIds");
-            }
-            for (Integer subTaskId : updatedEpicTask.getSubTasksIds()) {
-                if (!originalEpicTask.getSubTasksIds().contains(subTaskId)) {
-                    throw new TaskManagerException("Updated task and original task have different subTaskIds");
+        checkTasksDoNotIntersect(tasks);
+        for (Task task : tasks) {
+            timetable.removeTask(this.tasks.get(task.getTaskId()));
+        }
+        for (Task task : tasks) {
+            if (!(task instanceof EpicTask) && task.areTimePropertiesSet() && !isTaskTimeValid(task, null)) {
+                for (Task updatedTask : tasks) {
+                    timetable.addTask(this.tasks.get(updatedTask.getTaskId()));
                 }
+                throw new TaskTimeException("Updated Task intersects with other existing tasks");
             }
-            if (!haveSameTimeProperties(updatedEpicTask, originalEpicTask)) {
-                throw new TaskManagerException("Updated task and original task have different Time Properties");
+        }
+        for (Task task : tasks) {
+            removeFromPrioritizedSet(this.tasks.get(task.getTaskId()));
+        }
+        List<Integer> result = new ArrayList<>();
+        Set<Integer> masterTaskIds = new LinkedHashSet<>();
+        for (Task task : tasks) {
+            int masterTaskId = addUpdatedTask(task);
+            if (masterTaskId != 0) {
+                masterTaskIds.add(masterTaskId);
             }
+            result.add(task.getTaskId());
         }
-        task.changeZoneId(ZoneId.of("UTC"));
-        removeFromPrioritizedSet(tasks.get(task.getTaskId()));
-        removeTaskFromTimetable(tasks.get(task.getTaskId()));
-        tasks.put(task.getTaskId(), task);
-        addToPrioritizedSet(task);
-        addTaskToTimetable(task);
-        return task.getTaskId();
+        for (Integer masterTaskId : masterTaskIds) {
+            updateEpicTask((EpicTask) this.tasks.get(masterTaskId));
+        }
+        return result;
     }
 
     @Override
     public int deleteTaskByTaskId(int taskId) throws TaskManagerException {
-        if (!tasks.containsKey(taskId)) {
+        if (!tasks.contains(taskId)) {
             throw new NoSuchTaskException("There is no Task with such taskId");
         }
         Task task = tasks.get(taskId);
@@ -193,24 +226,25 @@ public class InMemoryTaskManager implements TaskManager {
             tasks.remove(taskId);
             historyManager.remove(taskId);
             removeFromPrioritizedSet(subTask);
-            removeTaskFromTimetable(subTask);
+            timetable.removeTask(subTask);
             EpicTask masterTask = (EpicTask) tasks.get(subTask.getMasterTaskId());
             masterTask.removeSubTaskId(taskId);
-            updateEpicTaskStatus(masterTask);
-            updateEpicTaskTimeProperties(masterTask);
+            epicTaskRollups.get(masterTask.getTaskId()).removeSubTask(taskId);
+            updateEpicTask(masterTask);
             return taskId;
         }
         if (task instanceof EpicTask) {
             EpicTask epicTask = (EpicTask) task;
-            for (Integer subTaskId : epicTask.getSubTasksIds()) {
+            epicTask.getSubTasksIdsView().forEach(subTaskId -> {
                 removeFromPrioritizedSet(tasks.get(subTaskId));
-                removeTaskFromTimetable(tasks.get(subTaskId));
+                timetable.removeTask(tasks.get(subTaskId));
                 tasks.remove(subTaskId);
                 historyManager.remove(subTaskId);
-            }
+            });
+            epicTaskRollups.remove(taskId);
         }
         removeFromPrioritizedSet(task);
-        removeTaskFromTimetable(task);
+        timetable.removeTask(task);
         tasks.remove(taskId);
         historyManager.remove(taskId);
         return taskId;
@@ -230,72 +264,339 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    @Override
+    public TaskPage getHistory(String after, int limit) throws TaskManagerException {
+        checkPageLimit(limit);
+        try {
+            return historyManager.getHistory(after, limit);
+        } catch (HistoryManagerException exception) {
+            throw new TaskManagerException(exception.getMessage());
+        }
+    }
+
     @Override
     public List<Task> getPrioritizedTasks() {
-        List<Task> result = new ArrayList<>(sortedByStartTimeTasks);
-        result.addAll(tasksWithNoTimeProperties);
-        result.addAll(epicTasks);
+        List<Task> result = new ArrayList<>(tasks.size());
+        for (Collection<? extends Task> prioritizedTasks
+                : List.of(sortedByStartTimeTasks, tasksWithNoTimeProperties, epicTasks)) {
+            for (Task task : prioritizedTasks) {
+                result.add(getIndexedTask(task));
+            }
+        }
+        for (Task task : result) {
+            historyManager.add(task);
+        }
+        return result;
+    }
+
+    @Override
+    public TaskPage getPrioritizedTasks(String after, int limit) throws TaskManagerException {
+        checkPageLimit(limit);
+        List<Task> result = new ArrayList<>();
+        Iterator<? extends Task> timedTasks = sortedByStartTimeTasks.iterator();
+        Iterator<? extends Task> untimedTasks = tasksWithNoTimeProperties.iterator();
+        Iterator<? extends Task> allEpicTasks = epicTasks.iterator();
+        long afterStartTime = Long.MIN_VALUE;
+        int afterTaskId = 0;
+        // The cursor holds the sort key of the last Task, so paging goes on when that Task is changed or deleted
+        if (after != null && !after.isEmpty()) {
+            String[] parts = after.split(":");
+            try {
+                if (parts[0].equals(EPIC_CURSOR) && parts.length == 2) {
+                    EpicTask afterTask = new EpicTask(null, null);
+                    afterTask.setTaskId(Integer.parseInt(parts[1]));
+                    timedTasks = Collections.emptyIterator();
+                    untimedTasks = Collections.emptyIterator();
+                    allEpicTasks = epicTasks.tailSet(afterTask, false).iterator();
+                } else if (parts[0].equals(UNTIMED_CURSOR) && parts.length == 2) {
+                    Task afterTask = new Task(null, null);
+                    afterTask.setTaskId(Integer.parseInt(parts[1]));
+                    timedTasks = Collections.emptyIterator();
+                    untimedTasks = tasksWithNoTimeProperties.tailSet(afterTask, false).iterator();
+                } else if (parts[0].equals(TIMED_CURSOR) && parts.length == 3) {
+                    afterStartTime = Long.parseLong(parts[1]);
+                    afterTaskId = Integer.parseInt(parts[2]);
+                    Task afterTask = new Task(null, null);
+                    afterTask.setTimeProperties(
+                            ZonedDateTime.ofInstant(Instant.ofEpochSecond(afterStartTime), ZoneId.of("UTC")), 1);
+                    timedTasks = sortedByStartTimeTasks.tailSet(afterTask, true).iterator();
+                } else {
+                    throw new TaskManagerException("Could not read page cursor");
+                }
+            } catch (NumberFormatException | DateTimeException exception) {
+                throw new TaskManagerException("Could not read page cursor");
+            }
+        }
+        for (Iterator<? extends Task> iterator : List.of(timedTasks, untimedTasks, allEpicTasks)) {
+            while (iterator.hasNext() && result.size() < limit) {
+                Task task = iterator.next();
+                if (iterator == timedTasks && task.getStartTime().toEpochSecond() == afterStartTime
+                        && task.getTaskId() <= afterTaskId) {
+                    continue;
+                }
+                result.add(getIndexedTask(task));
+            }
+        }
+        for (Task task : result) {
+            historyManager.add(task);
+        }
+        return new TaskPage(result, result.isEmpty() ? null : getPrioritizedCursor(result.get(result.size() - 1)));
+    }
+
+    static String getPrioritizedCursor(Task task) {
+        if (task instanceof EpicTask) {
+            return EPIC_CURSOR + ":" + task.getTaskId();
+        } else if (task.areTimePropertiesSet()) {
+            return TIMED_CURSOR + ":" + task.getStartTime().toEpochSecond() + ":" + task.getTaskId();
+        } else {
+            return UNTIMED_CURSOR + ":" + task.getTaskId();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksBetween(ZonedDateTime from, ZonedDateTime to) throws TaskManagerException {
+        if (from == null || to == null) {
+            throw new TaskManagerException("Can not search for Tasks with null time borders");
+        }
+        if (!from.isBefore(to)) {
+            throw new TaskManagerException("from must be before to");
+        }
+        Task fromTask = new Task(null, null);
+        fromTask.setTimeProperties(from, 1);
+        Task toTask = new Task(null, null);
+        toTask.setTimeProperties(to, 1);
+        List<Task> result = new ArrayList<>();
+        Task previousTask = sortedByStartTimeTasks.lower(fromTask);
+        if (previousTask != null && previousTask.getEndTime().isAfter(from)) {
+            result.add(getIndexedTask(previousTask));
+        }
+        for (Task task : sortedByStartTimeTasks.subSet(fromTask, true, toTask, false)) {
+            result.add(getIndexedTask(task));
+        }
         for (Task task : result) {
             historyManager.add(task);
         }
         return result;
     }
 
+    @Override
+    public List<Task> getUpcomingTasks(ZonedDateTime after, int limit) throws TaskManagerException {
+        if (after == null) {
+            throw new TaskManagerException("Can not search for Tasks after null");
+        }
+        if (limit <= 0) {
+            throw new TaskManagerException("Number of Tasks must be positive");
+        }
+        Task afterTask = new Task(null, null);
+        afterTask.setTimeProperties(after, 1);
+        List<Task> result = new ArrayList<>();
+        for (Task task : sortedByStartTimeTasks.tailSet(afterTask, true)) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(getIndexedTask(task));
+        }
+        for (Task task : result) {
+            historyManager.add(task);
+        }
+        return result;
+    }
+
+    @Override
+    public TimeInterval getEarliestFreeTimeInterval(ZonedDateTime from, int duration) throws TaskManagerException {
+        return getFreeTimeIntervals(from, duration, 1).get(0);
+    }
+
+    @Override
+    public List<TimeInterval> getFreeTimeIntervals(ZonedDateTime from, int duration, int count)
+            throws TaskManagerException {
+        if (from == null) {
+            throw new TaskManagerException("Can not search for free time from null");
+        }
+        if (duration <= 0) {
+            throw new TaskManagerException("Free time interval must have positive duration");
+        }
+        if (count <= 0) {
+            throw new TaskManagerException("Number of free time intervals must be positive");
+        }
+        ZonedDateTime freeFrom = from.withZoneSameInstant(ZoneId.of("UTC"));
+        if (freeFrom.isBefore(START_TIME)) {
+            freeFrom = START_TIME;
+        }
+        Task searchTask = new Task(null, null);
+        searchTask.setTimeProperties(freeFrom, duration);
+        Task previousTask = sortedByStartTimeTasks.floor(searchTask);
+        if (previousTask != null && previousTask.getEndTime().isAfter(freeFrom)) {
+            freeFrom = previousTask.getEndTime();
+        }
+        int archivedIndex = archivedIntervals.floorIndex(searchTask.getStartTime());
+        if (archivedIndex >= 0 && archivedIntervals.getTo(archivedIndex).isAfter(freeFrom)) {
+            freeFrom = archivedIntervals.getTo(archivedIndex);
+        }
+        archivedIndex++;
+        List<TimeInterval> result = new ArrayList<>();
+        Iterator<Task> timedTasks = sortedByStartTimeTasks.tailSet(searchTask, false).iterator();
+        Task nextTask = timedTasks.hasNext() ? timedTasks.next() : null;
+        while (nextTask != null || archivedIndex < archivedIntervals.size()) {
+            ZonedDateTime busyFrom;
+            ZonedDateTime busyTo;
+            if (archivedIndex == archivedIntervals.size() || (nextTask != null
+                    && nextTask.getStartTime().isBefore(archivedIntervals.getFrom(archivedIndex)))) {
+                busyFrom = nextTask.getStartTime();
+                busyTo = nextTask.getEndTime();
+                nextTask = timedTasks.hasNext() ? timedTasks.next() : null;
+            } else {
+                busyFrom = archivedIntervals.getFrom(archivedIndex);
+                busyTo = archivedIntervals.getTo(archivedIndex);
+                archivedIndex++;
+            }
+            ZonedDateTime freeTo = freeFrom.plusMinutes(duration);
+            if (!freeTo.isAfter(busyFrom)) {
+                result.add(new TimeInterval(freeFrom, freeTo));
+                if (result.size() == count) {
+                    return result;
+                }
+            }
+            if (busyTo.isAfter(freeFrom)) {
+                freeFrom = busyTo;
+            }
+        }
+        result.add(new TimeInterval(freeFrom, freeFrom.plusMinutes(duration)));
+        return result;
+    }
+
+    int peekNextTaskId() {
+        return nextTaskId;
+    }
+
     void setNextTaskId(int nextTaskId) {
         this.nextTaskId = nextTaskId;
     }
 
+    void restoreTasks(List<Task> restoredTasks, int[] historyTaskIds, int nextTaskId, boolean verify)
+            throws TaskManagerException, InvalidDataException {
+        if (tasks.size() != 0) {
+            throw new TaskManagerException("Can not restore Tasks into not empty TaskManager");
+        }
+        if (verify) {
+            verifyRestoredTasks(restoredTasks);
+        }
+        for (Task task : restoredTasks) {
+            tasks.put(task);
+        }
+        restoreIndexes(restoredTasks, historyTaskIds, nextTaskId);
+    }
+
+    void restoreIndexes(List<Task> restoredTasks, int[] historyTaskIds, int nextTaskId) {
+        int maxTaskId = 0;
+        for (Task task : restoredTasks) {
+            task.changeZoneId(ZoneId.of("UTC"));
+            if (task instanceof EpicTask) {
+                epicTaskRollups.put(task.getTaskId(), new EpicTaskRollup());
+            }
+            maxTaskId = Math.max(maxTaskId, task.getTaskId());
+        }
+        Set<Integer> masterTaskIds = new HashSet<>();
+        for (Task task : restoredTasks) {
+            addToPrioritizedSet(task);
+            timetable.addTask(task);
+            if (task instanceof SubTask) {
+                int masterTaskId = ((SubTask) task).getMasterTaskId();
+                ((EpicTask) tasks.get(masterTaskId)).addSubTaskId(task.getTaskId());
+                epicTaskRollups.get(masterTaskId).addSubTask(task);
+                masterTaskIds.add(masterTaskId);
+            }
+        }
+        for (int masterTaskId : masterTaskIds) {
+            updateEpicTask((EpicTask) tasks.get(masterTaskId));
+        }
+        this.nextTaskId = Math.max(nextTaskId, maxTaskId + 1);
+        for (int taskId : historyTaskIds) {
+            if (tasks.contains(taskId)) {
+                historyManager.add(tasks.get(taskId));
+            }
+        }
+    }
+
+    List<Task> findArchivableTasks(ZonedDateTime before) {
+        List<Task> result = new ArrayList<>();
+        tasks.forEach(task -> {
+            if (task instanceof SubTask || task.getStatus() != TaskStatus.DONE || !task.areTimePropertiesSet()
+                    || task.getEndTime().isAfter(before)) {
+                return;
+            }
+            result.add(task);
+            if (task instanceof EpicTask) {
+                result.addAll(getAllSubTasksByEpicTaskIdNoHistory(task.getTaskId()));
+            }
+        });
+        return result;
+    }
+
+    void detachArchivedTasks(List<Task> archivedTasks) {
+        for (Task task : archivedTasks) {
+            tasks.remove(task.getTaskId());
+            historyManager.remove(task.getTaskId());
+            removeFromPrioritizedSet(task);
+            timetable.removeTask(task);
+            epicTaskRollups.remove(task.getTaskId());
+        }
+        archivedIntervals.addAll(archivedTasks);
+    }
+
+    void restoreArchivedIntervals(List<Task> archivedTasks) {
+        archivedIntervals.addAll(archivedTasks);
+    }
+
+    Task getArchivedTask(int taskId) {
+        return null;
+    }
+
+    Task getTaskByTaskIdNoHistory(int taskId) {
+        return tasks.get(taskId);
+    }
+
     List<Task> getAllTasksNoHistory() {
         ArrayList<Task> allTasks = new ArrayList<>();
         ArrayList<Task> allEpicTasks = new ArrayList<>();
-        for (Integer taskId : tasks.keySet()) {
-            Task task = tasks.get(taskId);
+        tasks.forEach(task -> {
             if (task instanceof SubTask) {
-                continue;
+                return;
             }
             if (task instanceof EpicTask) {
                 allEpicTasks.add(task);
-                allEpicTasks.addAll(getAllSubTasksByEpicTaskIdNoHistory(taskId));
-                continue;
+                allEpicTasks.addAll(getAllSubTasksByEpicTaskIdNoHistory(task.getTaskId()));
+                return;
             }
             allTasks.add(task);
-        }
+        });
         allTasks.addAll(allEpicTasks);
         return allTasks;
     }
 
     private List<SubTask> getAllSubTasksByEpicTaskIdNoHistory(int taskId) throws TaskManagerException {
-        if (!tasks.containsKey(taskId)) {
+        if (!tasks.contains(taskId)) {
             throw new NoSuchTaskException("There is no task with such taskId");
         }
         if (!(tasks.get(taskId) instanceof EpicTask)) {
             throw new TaskTypeMismatchException("Task with such taskId is not an EpicTask");
         }
         EpicTask epicTask = (EpicTask) tasks.get(taskId);
-        ArrayList<SubTask> allSubTasks = new ArrayList<>();
-        for (Integer subTaskId : epicTask.getSubTasksIds()) {
-            allSubTasks.add((SubTask) tasks.get(subTaskId));
-        }
+        ArrayList<SubTask> allSubTasks = new ArrayList<>(epicTask.getSubTasksIdsView().size());
+        epicTask.getSubTasksIdsView().forEach(subTaskId -> allSubTasks.add((SubTask) tasks.get(subTaskId)));
         return allSubTasks;
     }
 
-    private void updateEpicTaskStatus(EpicTask epicTask) {
-        if (epicTask.getSubTasksIds().isEmpty()) {
-            epicTask.setStatus(TaskStatus.NEW);
-            return;
-        }
-        TaskStatus status = tasks.get(epicTask.getSubTasksIds().get(0)).getStatus();
-        if (status == TaskStatus.IN_PROGRESS) {
-            epicTask.setStatus(TaskStatus.IN_PROGRESS);
-            return;
-        }
-        for (int i = 1; i < epicTask.getSubTasksIds().size(); i++) {
-            if (status != tasks.get(epicTask.getSubTasksIds().get(i)).getStatus()) {
-                epicTask.setStatus(TaskStatus.IN_PROGRESS);
-                return;
-            }
-        }
-        epicTask.setStatus(status);
+    private boolean isTaskTimeValid(Task task, Task replacedTask) {
+        return timetable.isTaskTimeValid(task, replacedTask) && !archivedIntervals.intersects(task);
+    }
+
+    private Task getIndexedTask(Task task) {
+        return tasks.get(task.getTaskId());
+    }
+
+    private void updateEpicTask(EpicTask epicTask) {
+        epicTaskRollups.get(epicTask.getTaskId()).applyTo(epicTask);
     }
 
     boolean haveSameTimeProperties(EpicTask epicTask, EpicTask otherEpicTask) {
@@ -310,34 +611,6 @@ public class InMemoryTaskManager implements TaskManager {
         }
     }
 
-    private void updateEpicTaskTimeProperties(EpicTask epicTask) {
-        if (epicTask.getSubTasksIds().isEmpty()) {
-            epicTask.resetTimeProperties();
-            return;
-        }
-        Task subTask = tasks.get(epicTask.getSubTasksIds().get(0));
-        if (!subTask.areTimePropertiesSet()) {
-            epicTask.resetTimeProperties();
-            return;
-        }
-        ZonedDateTime epicStartTime = subTask.getStartTime();
-        ZonedDateTime epicEndTime = subTask.getEndTime();
-        for (int i = 1; i < epicTask.getSubTasksIds().size(); i++) {
-            subTask = tasks.get(epicTask.getSubTasksIds().get(i));
-            if (!subTask.areTimePropertiesSet()) {
-                epicTask.resetTimeProperties();
-                return;
-            }
-            if (epicStartTime.isAfter(subTask.getStartTime())) {
-                epicStartTime = subTask.getStartTime();
-            }
-            if (epicEndTime.isBefore(subTask.getEndTime())) {
-                epicEndTime = subTask.getEndTime();
-            }
-        }
-        epicTask.setTimeProperties(epicStartTime, (int) Duration.between(epicStartTime, epicEndTime).toMinutes());
-    }
-
     private void addToPrioritizedSet(Task task) {
         if (task instanceof EpicTask) {
             epicTasks.add((EpicTask) task);
@@ -362,82 +635,151 @@ public class InMemoryTaskManager implements TaskManager {
         }
     }
 
-    private void initiateTimetable() {
-        ZonedDateTime from = START_TIME;
-        ZonedDateTime to = START_TIME.plusMinutes(TIME_INTERVAL_LENGTH);
-        while (to.isBefore(endTime)) {
-            timetable.put(new TimeInterval(from, to), new ArrayList<>());
-            from = to;
-            to = to.plusMinutes(TIME_INTERVAL_LENGTH);
+    private void verifyRestoredTasks(List<Task> restoredTasks) throws InvalidDataException {
+        Map<Integer, Task> restoredTasksById = new HashMap<>();
+        for (Task task : restoredTasks) {
+            if (task == null || task.getTaskId() <= 0) {
+                throw new InvalidDataException("Restored Task must have positive taskId");
+            }
+            if (restoredTasksById.put(task.getTaskId(), task) != null) {
+                throw new InvalidDataException("Restored Tasks have the same taskId");
+            }
+            if (!(task instanceof EpicTask) && task.areTimePropertiesSet()
+                    && task.getStartTime().isBefore(START_TIME)) {
+                throw new InvalidDataException("Restored Task has startTime in the Past");
+            }
+        }
+        for (Task task : restoredTasks) {
+            if (task instanceof SubTask
+                    && !(restoredTasksById.get(((SubTask) task).getMasterTaskId()) instanceof EpicTask)) {
+                throw new InvalidDataException("Restored SubTask has no EpicTask with such masterTaskId");
+            }
+        }
+        try {
+            checkTasksDoNotIntersect(restoredTasks);
+        } catch (TaskTimeException exception) {
+            throw new InvalidDataException("Restored Tasks intersect with each other");
         }
-        timetable.put(new TimeInterval(from, to), new ArrayList<>());
-        endTime = to;
     }
 
-    private void extendTimetable(ZonedDateTime newEndTime) {
-        ZonedDateTime from = endTime;
-        ZonedDateTime to = from.plusMinutes(TIME_INTERVAL_LENGTH);
-        while (to.isBefore(newEndTime)) {
-            timetable.put(new TimeInterval(from, to), new ArrayList<>());
-            from = to;
-            to = to.plusMinutes(TIME_INTERVAL_LENGTH);
+    private void checkPageLimit(int limit) throws TaskManagerException {
+        if (limit <= 0) {
+            throw new TaskManagerException("Number of Tasks must be positive");
         }
-        timetable.put(new TimeInterval(from, to), new ArrayList<>());
-        endTime = to;
     }
 
-    private List<TimeInterval> getTimeIntervalsToCheck(Task task) {
-        Duration beforeTaskStart = Duration.between(START_TIME, task.getStartTime());
-        int numberOfTimeIntervalsBeforeTaskStart = (int) beforeTaskStart.toMinutes() / TIME_INTERVAL_LENGTH;
-        List<TimeInterval> timeIntervalsToCheck = new ArrayList<>();
-        if (task.getStartTime().isBefore(endTime)) {
-            ZonedDateTime from = START_TIME.plusMinutes(numberOfTimeIntervalsBeforeTaskStart * TIME_INTERVAL_LENGTH);
-            ZonedDateTime to = from.plusMinutes(TIME_INTERVAL_LENGTH);
-            while (to.isBefore(task.getEndTime()) && to.isBefore(endTime)) {
-                timeIntervalsToCheck.add(new TimeInterval(from, to));
-                from = to;
-                to = to.plusMinutes(15);
+    private void checkTaskToCreate(Task task, Map<Integer, Task> createdTasks) throws TaskManagerException {
+        if (task == null) {
+            throw new TaskManagerException("Can not create null Task");
+        }
+        if (task.areTimePropertiesSet() && task.getStartTime().isBefore(START_TIME)) {
+            throw new TaskManagerException("Can not create Task with startTime in the Past");
+        }
+        if (task instanceof SubTask) {
+            int masterTaskId = ((SubTask) task).getMasterTaskId();
+            Task masterTask = tasks.contains(masterTaskId) ? tasks.get(masterTaskId) : createdTasks.get(masterTaskId);
+            if (masterTask == null) {
+                throw new NoSuchTaskException("There is no Task with such masterTaskId");
+            }
+            if (!(masterTask instanceof EpicTask)) {
+                throw new TaskTypeMismatchException("Task with such masterTaskId is not an EpicTask");
+            }
+        }
+        if (task instanceof EpicTask) {
+            if (((EpicTask) task).hasSubTasks()) {
+                throw new TaskManagerException("EpicTask mast not have SubTasks");
+            }
+            if (task.areTimePropertiesSet()) {
+                throw new TaskManagerException("EpicTask mast not have TimePropertiesSet");
             }
-            timeIntervalsToCheck.add(new TimeInterval(from, to));
         }
-        return timeIntervalsToCheck;
     }
-    private boolean isTaskTimeValid(Task task) {
-        TimeInterval taskTimeInterval = new TimeInterval(task.getStartTime(), task.getEndTime());
-        for (TimeInterval interval : getTimeIntervalsToCheck(task)) {
-            for (OccupiedTimeInterval<Integer> occupiedInterval : timetable.get(interval)) {
-                if (TimeInterval.doIntersect(taskTimeInterval, occupiedInterval)
-                    && occupiedInterval.getValue() != task.getTaskId()) {
-                    return false;
+
+    private void checkTaskToUpdate(Task task) throws TaskManagerException {
+        if (task == null) {
+            throw new TaskManagerException("Can not update null Task");
+        }
+        if (task.areTimePropertiesSet() && task.getStartTime().isBefore(START_TIME)) {
+            throw new TaskManagerException("Can not update Task with startTime in the Past");
+        }
+        if (!tasks.contains(task.getTaskId())) {
+            throw new NoSuchTaskException("There is no such task");
+        }
+        if (task.getClass() != tasks.get(task.getTaskId()).getClass()) {
+            throw new TaskTypeMismatchException("Updated task and original task have different types");
+        }
+        if (task instanceof SubTask) {
+            SubTask subTask = (SubTask) task;
+            if (subTask.getMasterTaskId() != ((SubTask) tasks.get(subTask.getTaskId())).getMasterTaskId()) {
+                throw new TaskManagerException("Updated task and original task have different masterTaskIds");
+            }
+        }
+        if (task instanceof EpicTask) {
+            EpicTask updatedEpicTask = (EpicTask) task;
+            EpicTask originalEpicTask = (EpicTask) tasks.get(updatedEpicTask.getTaskId());
+            IntSetView updatedSubTasksIds = updatedEpicTask.getSubTasksIdsView();
+            IntSetView originalSubTasksIds = originalEpicTask.getSubTasksIdsView();
+            if (updatedSubTasksIds.size() != originalSubTasksIds.size()) {
+                throw new TaskManagerException("Updated task and original task have different number of subTaskIds");
+            }
+            for (int i = 0; i < updatedSubTasksIds.size(); i++) {
+                if (!originalSubTasksIds.contains(updatedSubTasksIds.get(i))) {
+                    throw new TaskManagerException("Updated task and original task have different subTaskIds");
                 }
             }
+            if (!haveSameTimeProperties(updatedEpicTask, originalEpicTask)) {
+                throw new TaskManagerException("Updated task and original task have different Time Properties");
+            }
         }
-        return true;
     }
 
-    private void removeTaskFromTimetable(Task task) {
-        if (!task.areTimePropertiesSet() || task instanceof EpicTask) {
-            return;
+    private void checkTasksDoNotIntersect(List<Task> tasks) throws TaskTimeException {
+        List<Task> timedTasks = new ArrayList<>();
+        for (Task task : tasks) {
+            if (!(task instanceof EpicTask) && task.areTimePropertiesSet()) {
+                timedTasks.add(task);
+            }
         }
-        TimeInterval taskTimeInterval = new TimeInterval(task.getStartTime(), task.getEndTime());
-        for (TimeInterval interval : getTimeIntervalsToCheck(task)) {
-            timetable.get(interval).remove(new OccupiedTimeInterval<> (
-                    TimeInterval.getIntersection(interval, taskTimeInterval), task.getTaskId()));
+        timedTasks.sort(sortedByStartTimeTasks.comparator());
+        for (int i = 1; i < timedTasks.size(); i++) {
+            if (timedTasks.get(i - 1).getEndTime().isAfter(timedTasks.get(i).getStartTime())) {
+                throw new TaskTimeException("Tasks in batch intersect with each other");
+            }
         }
     }
 
-    private void addTaskToTimetable(Task task) {
-        if (!task.areTimePropertiesSet() || task instanceof EpicTask) {
-            return;
+    private int addCreatedTask(Task task) {
+        task.setTaskId(getNextTaskId());
+        task.changeZoneId(ZoneId.of("UTC"));
+        tasks.put(task);
+        timetable.addTask(task);
+        addToPrioritizedSet(task);
+        if (task instanceof EpicTask) {
+            epicTaskRollups.put(task.getTaskId(), new EpicTaskRollup());
         }
-        if (endTime.isBefore(task.getEndTime())) {
-            extendTimetable(task.getEndTime());
+        if (!(task instanceof SubTask)) {
+            return 0;
+        }
+        int masterTaskId = ((SubTask) task).getMasterTaskId();
+        ((EpicTask) tasks.get(masterTaskId)).addSubTaskId(task.getTaskId());
+        epicTaskRollups.get(masterTaskId).addSubTask(task);
+        return masterTaskId;
+    }
+
+    private int addUpdatedTask(Task task) {
+        task.changeZoneId(ZoneId.of("UTC"));
+        tasks.put(task);
+        addToPrioritizedSet(task);
+        timetable.addTask(task);
+        if (task instanceof EpicTask) {
+            return task.getTaskId();
         }
-        TimeInterval taskTimeInterval = new TimeInterval(task.getStartTime(), task.getEndTime());
-        for (TimeInterval interval : getTimeIntervalsToCheck(task)) {
-            timetable.get(interval).add(new OccupiedTimeInterval<> (
-                    TimeInterval.getIntersection(interval, taskTimeInterval), task.getTaskId()));
+        if (!(task instanceof SubTask)) {
+            return 0;
         }
+        int masterTaskId = ((SubTask) task).getMasterTaskId();
+        epicTaskRollups.get(masterTaskId).addSubTask(task);
+        return masterTaskId;
     }
 
     private int getNextTaskId() {
@@ -2,26 +2,307 @@ package kanban.service;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.reflect.Type;
 import java.net.InetSocketAddress;
-import java.util.HashMap;
+import java.net.URLDecoder;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 
+import kanban.exceptions.KVStorageException;
+import kanban.exceptions.ValueTooLargeException;
+
 public class KVServer {
     public static final int PORT = 8078;
+    public static final int DEFAULT_SCAN_LIMIT = 100;
+    public static final int DEFAULT_WORKER_THREADS = 4 * Runtime.getRuntime().availableProcessors();
+    // Bodies move through slices of this size, so a large value is never copied whole into a socket buffer
+    public static final int STREAM_BUFFER_BYTES = 64 * 1024;
+    private static final int STREAM_BUFFER_CHARS = 8 * 1024;
+    public static final int DEFAULT_MAX_VALUE_BYTES = 64 * 1024 * 1024;
+    private static final Gson gson = new Gson();
+    private static final Type KEYS_TYPE = new TypeToken<List<String>>() {}.getType();
     private final String apiToken;
     private final HttpServer server;
-    private final Map<String, String> data = new HashMap<>();
+    private final ExecutorService executor;
+    private final boolean isExecutorOwned;
+    private final KVStorage data;
+    // One counter for all keys, so a version is never reissued for a key even after a conflicting write
+    private final AtomicLong lastVersion;
+    private final LongAdder hitsCount = new LongAdder();
+    private final LongAdder missesCount = new LongAdder();
+    // Single keys are updated without locking, batches and scans take the lock to stay atomic against each other
+    private final ReadWriteLock batchLock = new ReentrantReadWriteLock();
+    // Caps a single value and a whole batch body, so no request can make the server hold more than this
+    private volatile int maxValueBytes = DEFAULT_MAX_VALUE_BYTES;
 
     public KVServer() throws IOException {
+        this(newVirtualThreadExecutor(), true, new MemoryKVStorage());
+    }
+
+    public KVServer(ExecutorService executor) throws IOException {
+        this(executor, false, new MemoryKVStorage());
+    }
+
+    public KVServer(KVStorage storage) throws IOException {
+        this(newVirtualThreadExecutor(), true, storage);
+    }
+
+    public KVServer(ExecutorService executor, KVStorage storage) throws IOException {
+        this(executor, false, storage);
+    }
+
+    private KVServer(ExecutorService executor, boolean isExecutorOwned, KVStorage storage) throws IOException {
         apiToken = generateApiToken();
+        this.executor = executor;
+        this.isExecutorOwned = isExecutorOwned;
+        data = storage;
+        lastVersion = new AtomicLong(storage.getLastVersion());
         server = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
+        server.setExecutor(executor);
         server.createContext("/register", this::register);
         server.createContext("/save", this::save);
         server.createContext("/load", this::load);
+        server.createContext("/scan", this::scan);
+        server.createContext("/saveBatch", this::saveBatch);
+        server.createContext("/loadBatch", this::loadBatch);
+        server.createContext("/deleteBatch", this::deleteBatch);
+        server.createContext("/stats", this::stats);
+    }
+
+    private void saveBatch(HttpExchange h) throws IOException {
+        try {
+            if (!hasAuth(h)) {
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                if (getContentLength(h) > maxValueBytes) {
+                    sendTooLarge(h);
+                    return;
+                }
+                BoundedInputStream body = new BoundedInputStream(h.getRequestBody(), maxValueBytes);
+                Map<String, byte[]> values;
+                try {
+                    values = readValues(new InputStreamReader(body, UTF_8));
+                } catch (IOException | IllegalStateException exception) {
+                    if (body.isExceeded()) {
+                        sendTooLarge(h);
+                    } else {
+                        h.sendResponseHeaders(400, 0);
+                    }
+                    return;
+                }
+                long expiresAtMillis = getExpiresAtMillis(h);
+                if (values.isEmpty() || expiresAtMillis < 0) {
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+                    if (entry.getKey().isEmpty() || entry.getValue().length == 0) {
+                        h.sendResponseHeaders(400, 0);
+                        return;
+                    }
+                }
+                Map<String, KVValue> newValues = new LinkedHashMap<>();
+                for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+                    newValues.put(entry.getKey(), newValue(entry.getValue(), expiresAtMillis));
+                }
+                batchLock.writeLock().lock();
+                try {
+                    data.putAll(newValues);
+                } finally {
+                    batchLock.writeLock().unlock();
+                }
+                h.sendResponseHeaders(200, 0);
+            } else {
+                h.sendResponseHeaders(405, 0);
+            }
+        } catch (ValueTooLargeException exception) {
+            // The batch is larger than the whole memory budget of the storage
+            sendEmpty(h, 413);
+        } catch (KVStorageException exception) {
+            sendEmpty(h, 500);
+        } finally {
+            h.close();
+        }
+    }
+
+    private void loadBatch(HttpExchange h) throws IOException {
+        try {
+            if (!hasAuth(h)) {
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                if (getContentLength(h) > maxValueBytes) {
+                    sendTooLarge(h);
+                    return;
+                }
+                BoundedInputStream body = new BoundedInputStream(h.getRequestBody(), maxValueBytes);
+                List<String> keys;
+                try {
+                    keys = gson.fromJson(new InputStreamReader(body, UTF_8), KEYS_TYPE);
+                } catch (JsonParseException exception) {
+                    if (body.isExceeded()) {
+                        sendTooLarge(h);
+                    } else {
+                        h.sendResponseHeaders(400, 0);
+                    }
+                    return;
+                }
+                if (keys == null || keys.isEmpty()) {
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                Map<String, KVValue> values = new LinkedHashMap<>();
+                batchLock.readLock().lock();
+                try {
+                    for (String key : keys) {
+                        KVValue value = key == null ? null : data.get(key);
+                        if (value != null) {
+                            values.put(key, value);
+                            hitsCount.increment();
+                        } else {
+                            missesCount.increment();
+                        }
+                    }
+                } finally {
+                    batchLock.readLock().unlock();
+                }
+                sendValues(h, values);
+            } else {
+                h.sendResponseHeaders(405, 0);
+            }
+        } catch (KVStorageException exception) {
+            sendEmpty(h, 500);
+        } finally {
+            h.close();
+        }
+    }
+
+    private void deleteBatch(HttpExchange h) throws IOException {
+        try {
+            if (!hasAuth(h)) {
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                if (getContentLength(h) > maxValueBytes) {
+                    sendTooLarge(h);
+                    return;
+                }
+                BoundedInputStream body = new BoundedInputStream(h.getRequestBody(), maxValueBytes);
+                List<String> keys;
+                try {
+                    keys = gson.fromJson(new InputStreamReader(body, UTF_8), KEYS_TYPE);
+                } catch (JsonParseException exception) {
+                    if (body.isExceeded()) {
+                        sendTooLarge(h);
+                    } else {
+                        h.sendResponseHeaders(400, 0);
+                    }
+                    return;
+                }
+                if (keys == null || keys.isEmpty() || keys.contains(null)) {
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                batchLock.writeLock().lock();
+                try {
+                    for (String key : keys) {
+                        data.remove(key, lastVersion.incrementAndGet());
+                    }
+                } finally {
+                    batchLock.writeLock().unlock();
+                }
+                h.sendResponseHeaders(200, 0);
+            } else {
+                h.sendResponseHeaders(405, 0);
+            }
+        } catch (KVStorageException exception) {
+            sendEmpty(h, 500);
+        } finally {
+            h.close();
+        }
+    }
+
+    private void scan(HttpExchange h) throws IOException {
+        try {
+            if (!hasAuth(h)) {
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if ("GET".equals(h.getRequestMethod())) {
+                String prefix = getQueryParameter(h, "prefix", "");
+                String after = getQueryParameter(h, "after", "");
+                int limit;
+                try {
+                    limit = Integer.parseInt(getQueryParameter(h, "limit", String.valueOf(DEFAULT_SCAN_LIMIT)));
+                } catch (NumberFormatException exception) {
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                if (limit <= 0) {
+                    h.sendResponseHeaders(400, 0);
+                    return;
+                }
+                Map<String, KVValue> values = new LinkedHashMap<>();
+                NavigableSet<String> tail = after.compareTo(prefix) >= 0
+                        ? data.keySet().tailSet(after, false)
+                        : data.keySet().tailSet(prefix, true);
+                batchLock.readLock().lock();
+                try {
+                    for (String key : tail) {
+                        if (!key.startsWith(prefix) || values.size() == limit) {
+                            break;
+                        }
+                        KVValue value = data.get(key);
+                        if (value != null) {
+                            values.put(key, value);
+                        }
+                    }
+                } finally {
+                    batchLock.readLock().unlock();
+                }
+                sendValues(h, values);
+            } else {
+                h.sendResponseHeaders(405, 0);
+            }
+        } catch (KVStorageException exception) {
+            sendEmpty(h, 500);
+        } finally {
+            h.close();
+        }
     }
 
     private void load(HttpExchange h) throws IOException {
@@ -36,13 +317,22 @@ public class KVServer {
                     h.sendResponseHeaders(400, 0);
                     return;
                 }
-                if (!data.containsKey(key)) {
+                KVValue value = data.get(key);
+                if (value == null) {
+                    missesCount.increment();
                     h.sendResponseHeaders(404, 0);
                     return;
                 }
-                String value = data.get(key);
-                sendText(h, value);
+                hitsCount.increment();
+                h.getResponseHeaders().add("ETag", getETag(value));
+                if (matchesETag(h.getRequestHeaders().getFirst("If-None-Match"), value)) {
+                    sendEmpty(h, 304);
+                    return;
+                }
+                sendBytes(h, value.getBytes());
             }
+        } catch (KVStorageException exception) {
+            sendEmpty(h, 500);
         } finally {
             h.close();
         }
@@ -60,16 +350,60 @@ public class KVServer {
                     h.sendResponseHeaders(400, 0);
                     return;
                 }
-                String value = readText(h);
-                if (value.isEmpty()) {
+                byte[] value = readBytes(h);
+                if (value == null) {
+                    sendTooLarge(h);
+                    return;
+                }
+                long expiresAtMillis = getExpiresAtMillis(h);
+                if (value.length == 0 || expiresAtMillis < 0) {
                     h.sendResponseHeaders(400, 0);
                     return;
                 }
-                data.put(key, value);
+                KVValue newValue = newValue(value, expiresAtMillis);
+                String ifMatch = h.getRequestHeaders().getFirst("If-Match");
+                String ifNoneMatch = h.getRequestHeaders().getFirst("If-None-Match");
+                boolean isStored;
+                if (ifMatch != null) {
+                    KVValue current = data.get(key);
+                    isStored = current != null && matchesETag(ifMatch, current)
+                            && data.replace(key, current.getVersion(), newValue);
+                } else if ("*".equals(ifNoneMatch)) {
+                    isStored = data.putIfAbsent(key, newValue);
+                } else {
+                    data.put(key, newValue);
+                    isStored = true;
+                }
+                if (!isStored) {
+                    sendEmpty(h, 412);
+                    return;
+                }
+                h.getResponseHeaders().add("ETag", getETag(newValue));
                 h.sendResponseHeaders(200, 0);
             } else {
                 h.sendResponseHeaders(405, 0);
             }
+        } catch (ValueTooLargeException exception) {
+            // The value is larger than the whole memory budget of the storage
+            sendEmpty(h, 413);
+        } catch (KVStorageException exception) {
+            sendEmpty(h, 500);
+        } finally {
+            h.close();
+        }
+    }
+
+    private void stats(HttpExchange h) throws IOException {
+        try {
+            if (!hasAuth(h)) {
+                h.sendResponseHeaders(403, 0);
+                return;
+            }
+            if ("GET".equals(h.getRequestMethod())) {
+                sendText(h, gson.toJson(getStats()));
+            } else {
+                h.sendResponseHeaders(405, 0);
+            }
         } finally {
             h.close();
         }
@@ -87,6 +421,18 @@ public class KVServer {
         }
     }
 
+    public Map<String, Number> getStats() {
+        long hits = hitsCount.sum();
+        long misses = missesCount.sum();
+        Map<String, Number> result = new LinkedHashMap<>();
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("hitRate", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        result.put("evictions", data.getEvictionsCount());
+        result.put("expirations", data.getExpirationsCount());
+        return result;
+    }
+
     public void start() {
         server.start();
         System.out.println("KVServer запущен на порту " + PORT);
@@ -94,9 +440,37 @@ public class KVServer {
 
     public void stop() {
         server.stop(0);
+        if (isExecutorOwned) {
+            executor.shutdown();
+        }
+        data.close();
         System.out.println("KVServer остановлен");
     }
 
+    public void setMaxValueBytes(int maxValueBytes) {
+        if (maxValueBytes <= 0) {
+            throw new IllegalArgumentException("Value size limit must be positive");
+        }
+        this.maxValueBytes = maxValueBytes;
+    }
+
+    public static ExecutorService newWorkerPool(int threads) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "KVServer worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Virtual threads appear in Java 21, older runtimes fall back to a pool sized for blocking I/O
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            return newWorkerPool(DEFAULT_WORKER_THREADS);
+        }
+    }
+
     private String generateApiToken() {
         return "" + System.currentTimeMillis();
     }
@@ -106,8 +480,181 @@ public class KVServer {
         return rawQuery != null && (rawQuery.contains("API_TOKEN=" + apiToken) || rawQuery.contains("API_TOKEN=DEBUG"));
     }
 
-    protected String readText(HttpExchange h) throws IOException {
-        return new String(h.getRequestBody().readAllBytes(), UTF_8);
+    protected String getQueryParameter(HttpExchange h, String name, String defaultValue) {
+        String rawQuery = h.getRequestURI().getRawQuery();
+        if (rawQuery == null) {
+            return defaultValue;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separatorIndex = parameter.indexOf('=');
+            if (separatorIndex > 0 && parameter.substring(0, separatorIndex).equals(name)) {
+                return URLDecoder.decode(parameter.substring(separatorIndex + 1), UTF_8);
+            }
+        }
+        return defaultValue;
+    }
+
+    private boolean matchesETag(String header, KVValue value) {
+        if (header == null) {
+            return false;
+        }
+        for (String eTag : header.split(",")) {
+            eTag = eTag.trim();
+            if (eTag.startsWith("W/")) {
+                eTag = eTag.substring(2);
+            }
+            if (eTag.equals("*") || eTag.equals(getETag(value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private KVValue newValue(byte[] value, long expiresAtMillis) {
+        return new KVValue(value, lastVersion.incrementAndGet(), expiresAtMillis);
+    }
+
+    // Values saved with ttl=<seconds> expire that long after the save, a malformed ttl gives -1
+    private long getExpiresAtMillis(HttpExchange h) {
+        String ttl = getQueryParameter(h, "ttl", null);
+        if (ttl == null) {
+            return KVValue.NEVER;
+        }
+        try {
+            long ttlSeconds = Long.parseLong(ttl);
+            return ttlSeconds > 0 ? System.currentTimeMillis() + ttlSeconds * 1000 : -1;
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    private static String getETag(KVValue value) {
+        return "\"" + value.getVersion() + "\"";
+    }
+
+    // On a reply without body the connection is handed back before close() drains the request, which races with the
+    // next request on a kept-alive connection and resets it, so the request is drained first
+    protected void sendEmpty(HttpExchange h, int code) throws IOException {
+        h.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        h.sendResponseHeaders(code, -1);
+    }
+
+    // Nothing over the limit is read, so the socket is closed rather than drained
+    protected void sendTooLarge(HttpExchange h) throws IOException {
+        h.getResponseHeaders().add("Connection", "close");
+        h.sendResponseHeaders(413, -1);
+    }
+
+    protected long getContentLength(HttpExchange h) {
+        String contentLength = h.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentLength);
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    // The array grows with the bytes that actually arrive, Content-Length only caps it. Null when over the limit
+    protected byte[] readBytes(HttpExchange h) throws IOException {
+        long contentLength = getContentLength(h);
+        if (contentLength > maxValueBytes) {
+            return null;
+        }
+        int limit = contentLength < 0 ? maxValueBytes : (int) contentLength;
+        InputStream input = h.getRequestBody();
+        byte[] result = new byte[Math.min(limit, STREAM_BUFFER_BYTES)];
+        int length = 0;
+        while (true) {
+            if (length == result.length) {
+                if (length == limit) {
+                    if (contentLength < 0 && input.read() >= 0) {
+                        return null;
+                    }
+                    break;
+                }
+                result = Arrays.copyOf(result, (int) Math.min(limit, 2L * length));
+            }
+            int read = input.read(result, length, Math.min(STREAM_BUFFER_BYTES, result.length - length));
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        if (contentLength >= 0 && length < contentLength) {
+            throw new EOFException();
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
+    private static Map<String, byte[]> readValues(Reader reader) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            String key = json.nextName();
+            // One value at a time is held as a String, it is kept as UTF-8 bytes from then on
+            if (result.put(key, json.nextString().getBytes(UTF_8)) != null) {
+                throw new MalformedJsonException("Duplicate key " + key);
+            }
+        }
+        json.endObject();
+        if (json.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("Unexpected content after the values");
+        }
+        return result;
+    }
+
+    protected void sendBytes(HttpExchange h, byte[] bytes) throws IOException {
+        h.getResponseHeaders().add("Content-Type", "application/json");
+        h.sendResponseHeaders(200, bytes.length);
+        OutputStream output = h.getResponseBody();
+        for (int offset = 0; offset < bytes.length; offset += STREAM_BUFFER_BYTES) {
+            output.write(bytes, offset, Math.min(STREAM_BUFFER_BYTES, bytes.length - offset));
+        }
+    }
+
+    // Each value is decoded and escaped through a fixed-size buffer, it never becomes a String
+    protected void sendValues(HttpExchange h, Map<String, KVValue> values) throws IOException {
+        h.getResponseHeaders().add("Content-Type", "application/json");
+        h.sendResponseHeaders(200, 0);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(h.getResponseBody(), UTF_8), STREAM_BUFFER_BYTES);
+        writer.write('{');
+        boolean isFirst = true;
+        for (Map.Entry<String, KVValue> entry : values.entrySet()) {
+            if (!isFirst) {
+                writer.write(',');
+            }
+            isFirst = false;
+            writeJsonString(writer, new StringReader(entry.getKey()));
+            writer.write(':');
+            byte[] value = entry.getValue().getBytes();
+            writeJsonString(writer, new InputStreamReader(new ByteArrayInputStream(value), UTF_8));
+        }
+        writer.write('}');
+        writer.flush();
+    }
+
+    private static void writeJsonString(Writer writer, Reader value) throws IOException {
+        writer.write('"');
+        char[] buffer = new char[STREAM_BUFFER_CHARS];
+        int read;
+        while ((read = value.read(buffer)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == '"' || c == '\\') {
+                    writer.write('\\');
+                    writer.write(c);
+                } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                    writer.write(String.format("\\u%04x", (int) c));
+                } else {
+                    writer.write(c);
+                }
+            }
+        }
+        writer.write('"');
     }
 
     protected void sendText(HttpExchange h, String text) throws IOException {
@@ -116,4 +663,40 @@ public class KVServer {
         h.sendResponseHeaders(200, resp.length);
         h.getResponseBody().write(resp);
     }
-}
\ No newline at end of file
+
+    private static class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+        private boolean isExceeded;
+
+        private BoundedInputStream(InputStream input, long limit) {
+            super(input);
+            remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        // Ends the stream early once the limit is passed, the parser then fails and the caller checks isExceeded
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                if (!isExceeded && super.read() >= 0) {
+                    isExceeded = true;
+                }
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        private boolean isExceeded() {
+            return isExceeded;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package kanban.service;
+
+import java.util.Map;
+import java.util.NavigableSet;
+
+public interface KVStorage {
+    KVValue get(String key);
+
+    void put(String key, KVValue value);
+
+    void putAll(Map<String, KVValue> values);
+
+    boolean putIfAbsent(String key, KVValue value);
+
+    boolean replace(String key, long expectedVersion, KVValue value);
+
+    // The version orders the removal after every earlier write of the key
+    boolean remove(String key, long version);
+
+    NavigableSet<String> keySet();
+
+    long getLastVersion();
+
+    long getEvictionsCount();
+
+    long getExpirationsCount();
+
+    void close();
+}
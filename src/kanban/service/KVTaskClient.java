@@ -2,54 +2,264 @@ package kanban.service;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
 
 public class KVTaskClient {
+    private static final Gson gson = new Gson();
+    private static final Type VALUES_TYPE = new TypeToken<LinkedHashMap<String, String>>() {}.getType();
     private final HttpClient client = HttpClient.newHttpClient();
-    private final HttpResponse.BodyHandler<String> handler = HttpResponse.BodyHandlers.ofString();
+    private static final int STREAM_BUFFER_BYTES = KVServer.STREAM_BUFFER_BYTES;
+    private final HttpResponse.BodyHandler<InputStream> handler = HttpResponse.BodyHandlers.ofInputStream();
     private final String apiToken;
     private final URI uri;
+    // Versions of the keys as last seen by this client, taken from the ETag of each put and load
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
 
     public KVTaskClient(URL url) throws IOException, InterruptedException {
         uri = URI.create(url.toString());
         URI requestURI = URI.create(uri + "/register");
         HttpRequest registerRequest = HttpRequest.newBuilder().GET().uri(requestURI).build();
-        HttpResponse<String> response = client.send(registerRequest, handler);
+        HttpResponse<InputStream> response = client.send(registerRequest, handler);
         if (response.statusCode() == 200) {
-            apiToken = response.body();
+            apiToken = new String(readBody(response), UTF_8);
         } else {
+            discardBody(response);
             throw new IOException();
         }
     }
 
     public void put(String key, String json) throws IOException, InterruptedException {
+        put(key, json, 0);
+    }
+
+    public void put(String key, String json, long ttlSeconds) throws IOException, InterruptedException {
+        byte[] bytes = json.getBytes(UTF_8);
+        put(key, ofBytes(bytes), ttlSeconds);
+    }
+
+    // Streams the value from the given source, the length has to be known up front
+    public void put(String key, InputStream value, long length) throws IOException, InterruptedException {
+        put(key, HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> value),
+                length), 0);
+    }
+
+    private void put(String key, HttpRequest.BodyPublisher value, long ttlSeconds)
+            throws IOException, InterruptedException {
+        URI requestURI = URI.create(uri + "/save/" + key + "?API_TOKEN=" + apiToken
+                + (ttlSeconds > 0 ? "&ttl=" + ttlSeconds : ""));
+        HttpRequest saveRequest = HttpRequest.newBuilder().
+                POST(value).
+                uri(requestURI).
+                build();
+        HttpResponse<InputStream> response = client.send(saveRequest, handler);
+        discardBody(response);
+        if (response.statusCode() != 200) {
+            throw new IOException();
+        }
+        rememberVersion(key, response);
+    }
+
+    public boolean putIfVersion(String key, String json, long version) throws IOException, InterruptedException {
         URI requestURI = URI.create(uri + "/save/" + key + "?API_TOKEN=" + apiToken);
         HttpRequest saveRequest = HttpRequest.newBuilder().
-                POST(HttpRequest.BodyPublishers.ofString(json, UTF_8)).
+                POST(ofBytes(json.getBytes(UTF_8))).
+                header(version == 0 ? "If-None-Match" : "If-Match", version == 0 ? "*" : toETag(version)).
                 uri(requestURI).
                 build();
-        HttpResponse<String> response = client.send(saveRequest, handler);
+        HttpResponse<InputStream> response = client.send(saveRequest, handler);
+        discardBody(response);
+        if (response.statusCode() == 412) {
+            versions.remove(key);
+            return false;
+        }
         if (response.statusCode() != 200) {
             throw new IOException();
         }
+        rememberVersion(key, response);
+        return true;
     }
 
     public String load(String key) throws IOException, InterruptedException {
-        URI requestURI = URI.create(uri + "/load/" + key + "?API_TOKEN=" + apiToken);
-        HttpRequest loadRequest = HttpRequest.newBuilder().GET().uri(requestURI).build();
-        HttpResponse<String> response = client.send(loadRequest, handler);
+        String value = loadIfChanged(key, 0);
+        return value == null ? "" : value;
+    }
+
+    public String loadIfChanged(String key, long version) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = sendLoad(key, version);
         if (response.statusCode() == 404) {
             return "";
         }
-        if (response.statusCode() == 200) {
-            return response.body();
-        } else {
+        if (response.statusCode() == 304) {
+            return null;
+        }
+        return new String(readBody(response), UTF_8);
+    }
+
+    // Copies the value into the target through a fixed-size buffer, false when there is no such key
+    public boolean load(String key, OutputStream target) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = sendLoad(key, 0);
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        try (InputStream body = response.body()) {
+            byte[] buffer = new byte[STREAM_BUFFER_BYTES];
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                target.write(buffer, 0, read);
+            }
+        }
+        return true;
+    }
+
+    private HttpResponse<InputStream> sendLoad(String key, long version) throws IOException, InterruptedException {
+        URI requestURI = URI.create(uri + "/load/" + key + "?API_TOKEN=" + apiToken);
+        HttpRequest.Builder loadRequest = HttpRequest.newBuilder().GET().uri(requestURI);
+        if (version != 0) {
+            loadRequest.header("If-None-Match", toETag(version));
+        }
+        HttpResponse<InputStream> response = client.send(loadRequest.build(), handler);
+        if (response.statusCode() == 404) {
+            discardBody(response);
+            versions.remove(key);
+            return response;
+        }
+        if (response.statusCode() == 304) {
+            discardBody(response);
+            return response;
+        }
+        if (response.statusCode() != 200) {
+            discardBody(response);
+            throw new IOException();
+        }
+        rememberVersion(key, response);
+        return response;
+    }
+
+    public long getVersion(String key) {
+        return versions.getOrDefault(key, 0L);
+    }
+
+    public void putAll(Map<String, String> values) throws IOException, InterruptedException {
+        URI requestURI = URI.create(uri + "/saveBatch?API_TOKEN=" + apiToken);
+        HttpRequest saveRequest = HttpRequest.newBuilder().
+                POST(ofBytes(gson.toJson(values).getBytes(UTF_8))).
+                uri(requestURI).
+                build();
+        HttpResponse<InputStream> response = client.send(saveRequest, handler);
+        discardBody(response);
+        if (response.statusCode() != 200) {
+            throw new IOException();
+        }
+        versions.keySet().removeAll(values.keySet());
+    }
+
+    public Map<String, String> loadAll(Collection<String> keys) throws IOException, InterruptedException {
+        URI requestURI = URI.create(uri + "/loadBatch?API_TOKEN=" + apiToken);
+        HttpRequest loadRequest = HttpRequest.newBuilder().
+                POST(ofBytes(gson.toJson(keys).getBytes(UTF_8))).
+                uri(requestURI).
+                build();
+        return readValues(client.send(loadRequest, handler));
+    }
+
+    public void deleteAll(Collection<String> keys) throws IOException, InterruptedException {
+        URI requestURI = URI.create(uri + "/deleteBatch?API_TOKEN=" + apiToken);
+        HttpRequest deleteRequest = HttpRequest.newBuilder().
+                POST(ofBytes(gson.toJson(keys).getBytes(UTF_8))).
+                uri(requestURI).
+                build();
+        HttpResponse<InputStream> response = client.send(deleteRequest, handler);
+        discardBody(response);
+        if (response.statusCode() != 200) {
+            throw new IOException();
+        }
+        versions.keySet().removeAll(keys);
+    }
+
+    public Map<String, String> scan(String prefix, String after, int limit) throws IOException, InterruptedException {
+        URI requestURI = URI.create(uri + "/scan?API_TOKEN=" + apiToken
+                + "&prefix=" + URLEncoder.encode(prefix, UTF_8)
+                + "&after=" + URLEncoder.encode(after, UTF_8)
+                + "&limit=" + limit);
+        HttpRequest scanRequest = HttpRequest.newBuilder().GET().uri(requestURI).build();
+        return readValues(client.send(scanRequest, handler));
+    }
+
+    private Map<String, String> readValues(HttpResponse<InputStream> response) throws IOException {
+        if (response.statusCode() != 200) {
+            discardBody(response);
             throw new IOException();
         }
+        try (Reader reader = new InputStreamReader(response.body(), UTF_8)) {
+            return gson.fromJson(reader, VALUES_TYPE);
+        } catch (JsonParseException exception) {
+            throw new IOException(exception);
+        }
+    }
+
+    // Fills an array of the announced length in fixed-size reads, so the body is never buffered twice
+    private static byte[] readBody(HttpResponse<InputStream> response) throws IOException {
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        try (InputStream body = response.body()) {
+            if (length < 0) {
+                return body.readAllBytes();
+            }
+            byte[] result = new byte[Math.toIntExact(length)];
+            int offset = 0;
+            while (offset < result.length) {
+                int read = body.read(result, offset, Math.min(STREAM_BUFFER_BYTES, result.length - offset));
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                offset += read;
+            }
+            return result;
+        }
+    }
+
+    private static void discardBody(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream body = response.body()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static HttpRequest.BodyPublisher ofBytes(byte[] bytes) {
+        return HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(bytes)), bytes.length);
+    }
+
+    private void rememberVersion(String key, HttpResponse<InputStream> response) {
+        response.headers().firstValue("ETag").ifPresent(eTag -> {
+            try {
+                versions.put(key, Long.parseLong(eTag.replace("\"", "")));
+            } catch (NumberFormatException exception) {
+                versions.remove(key);
+            }
+        });
+    }
+
+    private static String toETag(long version) {
+        return "\"" + version + "\"";
     }
-}
\ No newline at end of file
+}
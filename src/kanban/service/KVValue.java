@@ -0,0 +1,44 @@
+package kanban.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public final class KVValue {
+    public static final long NEVER = 0;
+    private final byte[] bytes;
+    private final long version;
+    private final long expiresAtMillis;
+
+    public KVValue(String value, long version) {
+        this(value.getBytes(UTF_8), version, NEVER);
+    }
+
+    public KVValue(String value, long version, long expiresAtMillis) {
+        this(value.getBytes(UTF_8), version, expiresAtMillis);
+    }
+
+    public KVValue(byte[] bytes, long version, long expiresAtMillis) {
+        this.bytes = bytes;
+        this.version = version;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public String getValue() {
+        return new String(bytes, UTF_8);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis != NEVER && nowMillis >= expiresAtMillis;
+    }
+}
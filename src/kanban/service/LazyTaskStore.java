@@ -0,0 +1,159 @@
+package kanban.service;
+
+import kanban.exceptions.TaskManagerException;
+import kanban.model.Task;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+class LazyTaskStore implements TaskStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NOT_IN_SNAPSHOT = 0;
+    private final BinarySnapshot snapshot;
+    private final Map<Integer, Task> cachedTasks;
+    // Tasks created or changed after load, and EpicTasks, are never evicted
+    private Task[] residentTasks = new Task[INITIAL_CAPACITY];
+    private int[] snapshotPositions = new int[INITIAL_CAPACITY];
+    private int size;
+    private int maxTaskId;
+
+    LazyTaskStore(BinarySnapshot snapshot, int cacheCapacity) throws TaskManagerException {
+        if (cacheCapacity <= 0) {
+            throw new TaskManagerException("Cache capacity must be positive");
+        }
+        this.snapshot = snapshot;
+        cachedTasks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+    }
+
+    void putSnapshotTask(int taskId, int position) throws TaskManagerException {
+        if (taskId < 0) {
+            throw new TaskManagerException("Can not store Task with negative taskId");
+        }
+        ensureCapacity(taskId);
+        if (!contains(taskId)) {
+            size++;
+        }
+        residentTasks[taskId] = null;
+        snapshotPositions[taskId] = position;
+        maxTaskId = Math.max(maxTaskId, taskId);
+    }
+
+    int getCachedTasksCount() {
+        return cachedTasks.size();
+    }
+
+    @Override
+    public Task get(int taskId) {
+        if (taskId < 0 || taskId > maxTaskId) {
+            return null;
+        }
+        if (residentTasks[taskId] != null || snapshotPositions[taskId] == NOT_IN_SNAPSHOT) {
+            return residentTasks[taskId];
+        }
+        Task task = cachedTasks.get(taskId);
+        if (task == null) {
+            task = snapshot.readTaskAt(snapshotPositions[taskId]);
+            cachedTasks.put(taskId, task);
+        }
+        return task;
+    }
+
+    @Override
+    public boolean contains(int taskId) {
+        if (taskId < 0 || taskId > maxTaskId) {
+            return false;
+        }
+        return residentTasks[taskId] != null || snapshotPositions[taskId] != NOT_IN_SNAPSHOT;
+    }
+
+    @Override
+    public Task put(Task task) throws TaskManagerException {
+        int taskId = task.getTaskId();
+        if (taskId < 0) {
+            throw new TaskManagerException("Can not store Task with negative taskId");
+        }
+        ensureCapacity(taskId);
+        Task previousTask = get(taskId);
+        residentTasks[taskId] = task;
+        snapshotPositions[taskId] = NOT_IN_SNAPSHOT;
+        cachedTasks.remove(taskId);
+        if (previousTask == null) {
+            size++;
+        }
+        maxTaskId = Math.max(maxTaskId, taskId);
+        return previousTask;
+    }
+
+    @Override
+    public Task remove(int taskId) {
+        Task previousTask = get(taskId);
+        if (previousTask == null) {
+            return null;
+        }
+        residentTasks[taskId] = null;
+        snapshotPositions[taskId] = NOT_IN_SNAPSHOT;
+        cachedTasks.remove(taskId);
+        size--;
+        while (maxTaskId > 0 && !contains(maxTaskId)) {
+            maxTaskId--;
+        }
+        return previousTask;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        residentTasks = new Task[INITIAL_CAPACITY];
+        snapshotPositions = new int[INITIAL_CAPACITY];
+        cachedTasks.clear();
+        size = 0;
+        maxTaskId = 0;
+    }
+
+    @Override
+    public void forEach(Consumer<Task> action) {
+        for (int taskId = 0; taskId <= maxTaskId; taskId++) {
+            if (contains(taskId)) {
+                action.accept(peek(taskId));
+            }
+        }
+    }
+
+    @Override
+    public void forEachAfter(int afterTaskId, Predicate<Task> action) {
+        for (int taskId = Math.max(afterTaskId + 1, 0); taskId <= maxTaskId; taskId++) {
+            if (contains(taskId) && !action.test(peek(taskId))) {
+                return;
+            }
+        }
+    }
+
+    // Full scans decode past the cache, so one export does not evict the working set
+    private Task peek(int taskId) {
+        if (residentTasks[taskId] != null) {
+            return residentTasks[taskId];
+        }
+        Task task = cachedTasks.get(taskId);
+        return task != null ? task : snapshot.readTaskAt(snapshotPositions[taskId]);
+    }
+
+    private void ensureCapacity(int taskId) {
+        if (taskId >= residentTasks.length) {
+            int capacity = Math.max(taskId + 1, residentTasks.length * 2);
+            residentTasks = Arrays.copyOf(residentTasks, capacity);
+            snapshotPositions = Arrays.copyOf(snapshotPositions, capacity);
+        }
+    }
+}
@@ -0,0 +1,571 @@
+package kanban.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import kanban.exceptions.KVStorageException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+public class LogKVStorage implements KVStorage {
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    public static final int DEFAULT_MERGE_THRESHOLD = 4;
+    private static final String DATA_SUFFIX = ".data";
+    private static final String HINT_SUFFIX = ".hint";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    // crc, version, expiration time, key length, value length
+    private static final int HEADER_BYTES = Integer.BYTES + 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final long COMMIT_INTERVAL_MILLIS = 100;
+    // A record that expired long ago marks a removed key
+    private static final long REMOVED_AT_MILLIS = 1;
+    private final Path directory;
+    private final Durability durability;
+    private final long segmentBytes;
+    private final int mergeThreshold;
+    // Newest location of every key, values themselves stay on disk
+    private final ConcurrentNavigableMap<String, Location> keyDirectory = new ConcurrentSkipListMap<>();
+    private final Map<Integer, FileChannel> segments = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Object mergeLock = new Object();
+    private final AtomicBoolean isMergeScheduled = new AtomicBoolean();
+    private final AtomicLong expirationsCount = new AtomicLong();
+    private final ExecutorService mergeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kv-storage-merge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService commitExecutor;
+    private volatile FileChannel activeChannel;
+    private int activeSegment;
+    private long activeSize;
+    private int nextSegment;
+    private long lastVersion;
+
+    public LogKVStorage(Path directory) throws KVStorageException {
+        this(directory, Durability.GROUP_COMMIT, DEFAULT_SEGMENT_BYTES, DEFAULT_MERGE_THRESHOLD);
+    }
+
+    public LogKVStorage(Path directory, Durability durability, long segmentBytes, int mergeThreshold)
+            throws KVStorageException {
+        this.directory = directory;
+        this.durability = durability;
+        this.segmentBytes = segmentBytes;
+        this.mergeThreshold = mergeThreshold;
+        recover();
+        try {
+            openActiveSegment();
+        } catch (IOException exception) {
+            throw new KVStorageException("Could not write to storage");
+        }
+        if (durability == Durability.GROUP_COMMIT) {
+            commitExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "kv-storage-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            commitExecutor.scheduleWithFixedDelay(this::forceActiveSegment, COMMIT_INTERVAL_MILLIS,
+                    COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            commitExecutor = null;
+        }
+        scheduleMergeIfNeeded();
+    }
+
+    @Override
+    public KVValue get(String key) throws KVStorageException {
+        Location location = getLive(key);
+        while (location != null) {
+            FileChannel channel = segments.get(location.segment);
+            if (channel != null) {
+                try {
+                    return new KVValue(read(channel, location.valueOffset, location.valueLength), location.version,
+                            location.expiresAtMillis);
+                } catch (ClosedChannelException exception) {
+                    // A merge moved the key and closed its old segment, the key directory already has the new copy
+                } catch (IOException exception) {
+                    throw new KVStorageException("Could not read from storage");
+                }
+            }
+            Location newLocation = getLive(key);
+            if (newLocation == location) {
+                throw new KVStorageException("Could not read from storage");
+            }
+            location = newLocation;
+        }
+        return null;
+    }
+
+    @Override
+    public void put(String key, KVValue value) throws KVStorageException {
+        synchronized (writeLock) {
+            append(key, value);
+        }
+    }
+
+    @Override
+    public void putAll(Map<String, KVValue> values) throws KVStorageException {
+        synchronized (writeLock) {
+            for (Map.Entry<String, KVValue> entry : values.entrySet()) {
+                append(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, KVValue value) throws KVStorageException {
+        synchronized (writeLock) {
+            if (getLive(key) != null) {
+                return false;
+            }
+            append(key, value);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean replace(String key, long expectedVersion, KVValue value) throws KVStorageException {
+        synchronized (writeLock) {
+            Location location = getLive(key);
+            if (location == null || location.version != expectedVersion) {
+                return false;
+            }
+            append(key, value);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(String key, long version) throws KVStorageException {
+        synchronized (writeLock) {
+            if (getLive(key) == null) {
+                return false;
+            }
+            // An already expired record hides the older ones on recovery, and a merge drops them all
+            append(key, new KVValue(new byte[0], version, REMOVED_AT_MILLIS));
+            keyDirectory.remove(key);
+            return true;
+        }
+    }
+
+    @Override
+    public NavigableSet<String> keySet() {
+        return keyDirectory.keySet();
+    }
+
+    @Override
+    public long getLastVersion() {
+        synchronized (writeLock) {
+            return lastVersion;
+        }
+    }
+
+    @Override
+    public long getEvictionsCount() {
+        return 0;
+    }
+
+    @Override
+    public long getExpirationsCount() {
+        return expirationsCount.get();
+    }
+
+    int getSegmentsCount() {
+        return segments.size();
+    }
+
+    // Rewrites the live records of all closed segments into one new segment with a hint file and drops the rest
+    public void merge() throws KVStorageException {
+        synchronized (mergeLock) {
+            Set<Integer> mergedSegments = new HashSet<>();
+            int outputSegment;
+            synchronized (writeLock) {
+                for (int segment : segments.keySet()) {
+                    if (segment != activeSegment) {
+                        mergedSegments.add(segment);
+                    }
+                }
+                if (mergedSegments.isEmpty()) {
+                    return;
+                }
+                outputSegment = nextSegment++;
+            }
+            List<String> movedKeys = new ArrayList<>();
+            List<Location> oldLocations = new ArrayList<>();
+            List<Location> newLocations = new ArrayList<>();
+            Path dataFile = getDataFile(outputSegment);
+            Path hintFile = getHintFile(outputSegment);
+            Path temporaryHintFile = hintFile.resolveSibling(hintFile.getFileName() + TEMPORARY_SUFFIX);
+            FileChannel output = null;
+            try {
+                output = FileChannel.open(dataFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                long outputSize = 0;
+                try (DataOutputStream hints = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temporaryHintFile)))) {
+                    long nowMillis = System.currentTimeMillis();
+                    for (Map.Entry<String, Location> entry : keyDirectory.entrySet()) {
+                        Location location = entry.getValue();
+                        if (!mergedSegments.contains(location.segment)) {
+                            continue;
+                        }
+                        // Every older record of the key is in the merged segments too, so nothing can resurface
+                        if (location.isExpired(nowMillis)) {
+                            expire(entry.getKey(), location);
+                            continue;
+                        }
+                        byte[] key = entry.getKey().getBytes(UTF_8);
+                        byte[] value = read(segments.get(location.segment), location.valueOffset,
+                                location.valueLength);
+                        ByteBuffer record = encodeRecord(key, value, location.version, location.expiresAtMillis);
+                        write(output, record, outputSize);
+                        Location newLocation = new Location(outputSegment, outputSize + HEADER_BYTES + key.length,
+                                value.length, location.version, location.expiresAtMillis);
+                        outputSize += record.capacity();
+                        hints.writeLong(newLocation.version);
+                        hints.writeLong(newLocation.expiresAtMillis);
+                        hints.writeInt(key.length);
+                        hints.writeInt(newLocation.valueLength);
+                        hints.writeLong(newLocation.valueOffset);
+                        hints.write(key);
+                        movedKeys.add(entry.getKey());
+                        oldLocations.add(location);
+                        newLocations.add(newLocation);
+                    }
+                }
+                if (movedKeys.isEmpty()) {
+                    output.close();
+                    Files.delete(dataFile);
+                    Files.delete(temporaryHintFile);
+                } else {
+                    output.force(true);
+                    try (FileChannel hintChannel = FileChannel.open(temporaryHintFile, StandardOpenOption.WRITE)) {
+                        hintChannel.force(true);
+                    }
+                    FileBackedTaskManager.replaceFile(temporaryHintFile, hintFile);
+                    segments.put(outputSegment, output);
+                }
+            } catch (IOException exception) {
+                closeQuietly(output);
+                throw new KVStorageException("Could not write to storage");
+            }
+            for (int i = 0; i < movedKeys.size(); i++) {
+                // Fails when the key was written again during the merge, the copy in the output is dead then
+                keyDirectory.replace(movedKeys.get(i), oldLocations.get(i), newLocations.get(i));
+            }
+            try {
+                for (int segment : mergedSegments) {
+                    segments.remove(segment).close();
+                    Files.deleteIfExists(getHintFile(segment));
+                    Files.deleteIfExists(getDataFile(segment));
+                }
+            } catch (IOException exception) {
+                throw new KVStorageException("Could not write to storage");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws KVStorageException {
+        if (commitExecutor != null) {
+            commitExecutor.shutdown();
+        }
+        mergeExecutor.shutdown();
+        try {
+            mergeExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            if (commitExecutor != null) {
+                commitExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writeLock) {
+            if (!activeChannel.isOpen()) {
+                return;
+            }
+            try {
+                if (durability != Durability.BEST_EFFORT) {
+                    activeChannel.force(false);
+                }
+                for (FileChannel channel : segments.values()) {
+                    channel.close();
+                }
+            } catch (IOException exception) {
+                throw new KVStorageException("Could not write to storage");
+            }
+        }
+    }
+
+    // Expired records stay in their segments until a merge, the key directory just stops pointing at them
+    private Location getLive(String key) {
+        Location location = keyDirectory.get(key);
+        if (location != null && location.isExpired(System.currentTimeMillis())) {
+            expire(key, location);
+            return null;
+        }
+        return location;
+    }
+
+    private void expire(String key, Location location) {
+        if (keyDirectory.remove(key, location)) {
+            expirationsCount.incrementAndGet();
+        }
+    }
+
+    private void append(String key, KVValue value) throws KVStorageException {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        byte[] valueBytes = value.getBytes();
+        ByteBuffer record = encodeRecord(keyBytes, valueBytes, value.getVersion(), value.getExpiresAtMillis());
+        try {
+            if (activeSize > 0 && activeSize + record.capacity() > segmentBytes) {
+                rotate();
+            }
+            long offset = activeSize;
+            write(activeChannel, record, offset);
+            activeSize += record.capacity();
+            if (durability == Durability.FSYNC_PER_COMMIT) {
+                activeChannel.force(false);
+            }
+            keyDirectory.put(key, new Location(activeSegment, offset + HEADER_BYTES + keyBytes.length,
+                    valueBytes.length, value.getVersion(), value.getExpiresAtMillis()));
+        } catch (IOException exception) {
+            throw new KVStorageException("Could not write to storage");
+        }
+        lastVersion = Math.max(lastVersion, value.getVersion());
+    }
+
+    private void rotate() throws IOException {
+        activeChannel.force(false);
+        openActiveSegment();
+        scheduleMergeIfNeeded();
+    }
+
+    private void openActiveSegment() throws IOException {
+        activeSegment = nextSegment++;
+        activeSize = 0;
+        activeChannel = FileChannel.open(getDataFile(activeSegment), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(activeSegment, activeChannel);
+    }
+
+    private void scheduleMergeIfNeeded() {
+        if (segments.size() - 1 >= mergeThreshold && isMergeScheduled.compareAndSet(false, true)) {
+            mergeExecutor.execute(() -> {
+                isMergeScheduled.set(false);
+                try {
+                    merge();
+                } catch (KVStorageException exception) {
+                    // Segments that could not be merged stay readable, the next rotation tries again
+                }
+            });
+        }
+    }
+
+    private void forceActiveSegment() {
+        try {
+            activeChannel.force(false);
+        } catch (IOException exception) {
+            // A rotated segment was forced when it was closed, the next interval forces the new one
+        }
+    }
+
+    private void recover() throws KVStorageException {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TEMPORARY_SUFFIX)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException exception) {
+            throw new KVStorageException("Could not write to storage");
+        }
+        try {
+            for (int segment : getSegmentIds()) {
+                if (Files.exists(getHintFile(segment))) {
+                    readHints(segment);
+                } else {
+                    scanSegment(segment);
+                }
+                segments.put(segment, FileChannel.open(getDataFile(segment), StandardOpenOption.READ));
+                nextSegment = Math.max(nextSegment, segment + 1);
+            }
+        } catch (IOException exception) {
+            for (FileChannel channel : segments.values()) {
+                closeQuietly(channel);
+            }
+            throw new KVStorageException("Could not read from storage");
+        }
+    }
+
+    private void readHints(int segment) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(getHintFile(segment))))) {
+            while (true) {
+                long version;
+                try {
+                    version = input.readLong();
+                } catch (EOFException exception) {
+                    return;
+                }
+                long expiresAtMillis = input.readLong();
+                byte[] key = new byte[input.readInt()];
+                int valueLength = input.readInt();
+                long valueOffset = input.readLong();
+                input.readFully(key);
+                recoverLocation(new String(key, UTF_8),
+                        new Location(segment, valueOffset, valueLength, version, expiresAtMillis));
+            }
+        }
+    }
+
+    // Stops at the first torn or corrupted record, everything before it was written completely
+    private void scanSegment(int segment) throws IOException {
+        Path dataFile = getDataFile(segment);
+        long size = Files.size(dataFile);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(dataFile)))) {
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= size) {
+                input.readFully(header.array());
+                int checksum = header.getInt(0);
+                long version = header.getLong(Integer.BYTES);
+                long expiresAtMillis = header.getLong(Integer.BYTES + Long.BYTES);
+                int keyLength = header.getInt(Integer.BYTES + 2 * Long.BYTES);
+                int valueLength = header.getInt(Integer.BYTES + 2 * Long.BYTES + Integer.BYTES);
+                if (keyLength < 0 || valueLength < 0 || position + HEADER_BYTES + keyLength + valueLength > size) {
+                    return;
+                }
+                byte[] body = new byte[keyLength + valueLength];
+                input.readFully(body);
+                CRC32 crc = new CRC32();
+                crc.update(header.array(), Integer.BYTES, HEADER_BYTES - Integer.BYTES);
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    return;
+                }
+                recoverLocation(new String(body, 0, keyLength, UTF_8),
+                        new Location(segment, position + HEADER_BYTES + keyLength, valueLength, version,
+                                expiresAtMillis));
+                position += HEADER_BYTES + keyLength + valueLength;
+            }
+        }
+    }
+
+    // Merged segments get new ids, so the newest record of a key is found by its version, not by its segment
+    private void recoverLocation(String key, Location location) {
+        Location current = keyDirectory.get(key);
+        if (current == null || current.version < location.version) {
+            keyDirectory.put(key, location);
+        }
+        lastVersion = Math.max(lastVersion, location.version);
+    }
+
+    private List<Integer> getSegmentIds() throws IOException {
+        List<Integer> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + DATA_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                try {
+                    result.add(Integer.parseInt(fileName.substring(0, fileName.length() - DATA_SUFFIX.length())));
+                } catch (NumberFormatException exception) {
+                    // Not a segment of this storage
+                }
+            }
+        }
+        result.sort(Integer::compare);
+        return result;
+    }
+
+    private Path getDataFile(int segment) {
+        return directory.resolve(String.format("%010d%s", segment, DATA_SUFFIX));
+    }
+
+    private Path getHintFile(int segment) {
+        return directory.resolve(String.format("%010d%s", segment, HINT_SUFFIX));
+    }
+
+    private static ByteBuffer encodeRecord(byte[] key, byte[] value, long version, long expiresAtMillis) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + key.length + value.length);
+        record.putInt(0).putLong(version).putLong(expiresAtMillis).putInt(key.length).putInt(value.length)
+                .put(key).put(value);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, record.capacity() - Integer.BYTES);
+        record.putInt(0, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.array();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            // Nothing left to release
+        }
+    }
+
+    private static class Location {
+        private final int segment;
+        private final long valueOffset;
+        private final int valueLength;
+        private final long version;
+        private final long expiresAtMillis;
+
+        private Location(int segment, long valueOffset, int valueLength, long version, long expiresAtMillis) {
+            this.segment = segment;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.version = version;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired(long nowMillis) {
+            return expiresAtMillis != KVValue.NEVER && nowMillis >= expiresAtMillis;
+        }
+    }
+}
@@ -13,6 +13,14 @@ public class Managers {
         return new InMemoryHistoryManager();
     }
 
+    public static Timetable getDefaultTimetable() {
+        return new TreeMapTimetable();
+    }
+
+    public static TaskStore getDefaultTaskStore() {
+        return new DenseTaskStore();
+    }
+
     public static InMemoryTaskManager getInMemoryTaskManager() {
         return new InMemoryTaskManager(1, getDefaultHistory());
     }
@@ -22,6 +30,10 @@ public class Managers {
                 Paths.get(path));
     }
 
+    public static FileBackedTaskManager getJournaledFileBackedTaskManager(String path) {
+        return FileBackedTaskManager.loadWithJournal(Paths.get(path));
+    }
+
     public static HttpTaskManager getHttpTaskManager(URL url)  throws IOException, InterruptedException {
         return new HttpTaskManager(url);
     }
@@ -0,0 +1,270 @@
+package kanban.service;
+
+import kanban.exceptions.ValueTooLargeException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MemoryKVStorage implements KVStorage {
+    public static final long UNLIMITED = Long.MAX_VALUE;
+    // Rough cost of a map node, the key and value objects and their bookkeeping, on top of the key and value bytes
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int EXPIRATIONS_PER_WRITE = 16;
+    private final ConcurrentNavigableMap<String, KVValue> data = new ConcurrentSkipListMap<>();
+    private final long maxBytes;
+    // Least recently used key first, only kept while memory is limited
+    private final Map<String, Boolean> recency = new LinkedHashMap<>(16, 0.75f, true);
+    private final NavigableSet<Expiration> expirations = new TreeSet<>();
+    private final Object lock = new Object();
+    private final AtomicLong usedBytes = new AtomicLong();
+    // Read without the lock, so writes skip it while there is neither a budget nor a key waiting to expire
+    private volatile boolean hasExpirations;
+    private long evictionsCount;
+    private long expirationsCount;
+
+    public MemoryKVStorage() {
+        this(UNLIMITED);
+    }
+
+    public MemoryKVStorage(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Memory limit must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public KVValue get(String key) {
+        KVValue value = data.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value.isExpired(System.currentTimeMillis())) {
+            synchronized (lock) {
+                if (data.remove(key, value)) {
+                    forget(key, value);
+                    expirationsCount++;
+                }
+            }
+            return null;
+        }
+        if (maxBytes != UNLIMITED) {
+            synchronized (lock) {
+                recency.get(key);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void put(String key, KVValue value) throws ValueTooLargeException {
+        if (maxBytes == UNLIMITED && value.getExpiresAtMillis() == KVValue.NEVER && !hasExpirations) {
+            KVValue previous = data.put(key, value);
+            usedBytes.addAndGet(getSize(key, value) - (previous == null ? 0 : getSize(key, previous)));
+            return;
+        }
+        synchronized (lock) {
+            store(key, value);
+        }
+    }
+
+    // The batch is checked against the budget as a whole and only keys outside of it are evicted to make room
+    @Override
+    public void putAll(Map<String, KVValue> values) throws ValueTooLargeException {
+        long size = 0;
+        for (Map.Entry<String, KVValue> entry : values.entrySet()) {
+            size += getSize(entry.getKey(), entry.getValue());
+        }
+        if (size > maxBytes) {
+            throw new ValueTooLargeException("Values do not fit into the memory limit");
+        }
+        synchronized (lock) {
+            for (Map.Entry<String, KVValue> entry : values.entrySet()) {
+                write(entry.getKey(), entry.getValue());
+            }
+            expireDue(System.currentTimeMillis());
+            evictOverBudget(values.keySet());
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, KVValue value) throws ValueTooLargeException {
+        synchronized (lock) {
+            if (getLive(key) != null) {
+                return false;
+            }
+            store(key, value);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean replace(String key, long expectedVersion, KVValue value) throws ValueTooLargeException {
+        synchronized (lock) {
+            KVValue current = getLive(key);
+            if (current == null || current.getVersion() != expectedVersion) {
+                return false;
+            }
+            store(key, value);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(String key, long version) {
+        synchronized (lock) {
+            KVValue value = data.remove(key);
+            if (value == null) {
+                return false;
+            }
+            forget(key, value);
+            if (value.isExpired(System.currentTimeMillis())) {
+                expirationsCount++;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public NavigableSet<String> keySet() {
+        return data.keySet();
+    }
+
+    @Override
+    public long getLastVersion() {
+        long result = 0;
+        for (KVValue value : data.values()) {
+            result = Math.max(result, value.getVersion());
+        }
+        return result;
+    }
+
+    @Override
+    public long getEvictionsCount() {
+        synchronized (lock) {
+            return evictionsCount;
+        }
+    }
+
+    @Override
+    public long getExpirationsCount() {
+        synchronized (lock) {
+            return expirationsCount;
+        }
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private KVValue getLive(String key) {
+        KVValue value = data.get(key);
+        if (value != null && value.isExpired(System.currentTimeMillis())) {
+            if (data.remove(key, value)) {
+                forget(key, value);
+                expirationsCount++;
+            }
+            return null;
+        }
+        return value;
+    }
+
+    private void store(String key, KVValue value) throws ValueTooLargeException {
+        if (getSize(key, value) > maxBytes) {
+            throw new ValueTooLargeException("Value does not fit into the memory limit");
+        }
+        write(key, value);
+        expireDue(System.currentTimeMillis());
+        evictOverBudget(Set.of(key));
+    }
+
+    private void write(String key, KVValue value) {
+        KVValue previous = data.put(key, value);
+        if (previous != null) {
+            forget(key, previous);
+        }
+        usedBytes.addAndGet(getSize(key, value));
+        if (maxBytes != UNLIMITED) {
+            recency.put(key, Boolean.TRUE);
+        }
+        if (value.getExpiresAtMillis() != KVValue.NEVER) {
+            expirations.add(new Expiration(value.getExpiresAtMillis(), key));
+            hasExpirations = true;
+        }
+    }
+
+    private void forget(String key, KVValue value) {
+        usedBytes.addAndGet(-getSize(key, value));
+        recency.remove(key);
+        if (value.getExpiresAtMillis() != KVValue.NEVER) {
+            expirations.remove(new Expiration(value.getExpiresAtMillis(), key));
+            hasExpirations = !expirations.isEmpty();
+        }
+    }
+
+    // Each write retires a few of the earliest expirations, so keys that are never read again do not pile up
+    private void expireDue(long nowMillis) {
+        for (int i = 0; i < EXPIRATIONS_PER_WRITE && !expirations.isEmpty(); i++) {
+            Expiration expiration = expirations.first();
+            if (expiration.expiresAtMillis > nowMillis) {
+                return;
+            }
+            expirations.pollFirst();
+            // An unlocked put may have replaced the value since, its expiration is stale then
+            KVValue value = data.get(expiration.key);
+            if (value != null && value.getExpiresAtMillis() == expiration.expiresAtMillis
+                    && data.remove(expiration.key, value)) {
+                forget(expiration.key, value);
+                expirationsCount++;
+            }
+        }
+        hasExpirations = !expirations.isEmpty();
+    }
+
+    // The keys just written always fit into the budget together, so evicting the others is enough
+    private void evictOverBudget(Set<String> writtenKeys) {
+        Iterator<String> keys = recency.keySet().iterator();
+        while (usedBytes.get() > maxBytes && keys.hasNext()) {
+            String key = keys.next();
+            if (writtenKeys.contains(key)) {
+                continue;
+            }
+            keys.remove();
+            forget(key, data.remove(key));
+            evictionsCount++;
+        }
+    }
+
+    private static long getSize(String key, KVValue value) {
+        return ENTRY_OVERHEAD_BYTES + key.getBytes(StandardCharsets.UTF_8).length + value.getBytes().length;
+    }
+
+    private static class Expiration implements Comparable<Expiration> {
+        private final long expiresAtMillis;
+        private final String key;
+
+        private Expiration(long expiresAtMillis, String key) {
+            this.expiresAtMillis = expiresAtMillis;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Expiration other) {
+            int result = Long.compare(expiresAtMillis, other.expiresAtMillis);
+            return result != 0 ? result : key.compareTo(other.key);
+        }
+    }
+}
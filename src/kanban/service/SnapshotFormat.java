@@ -0,0 +1,6 @@
+package kanban.service;
+
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
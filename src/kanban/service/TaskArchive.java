@@ -0,0 +1,209 @@
+package kanban.service;
+
+import kanban.exceptions.InvalidDataException;
+import kanban.exceptions.ReadFromFileException;
+import kanban.exceptions.SaveToFileException;
+import kanban.model.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+class TaskArchive {
+    private static final String ARCHIVE_SUFFIX = ".archive.";
+    private static final int MAGIC = 0x4B4E4152;
+    private static final long NO_START_TIME = Long.MIN_VALUE;
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private final Path backupFile;
+    private final Map<Integer, Integer> segmentsByTaskId = new HashMap<>();
+    private int nextSegment;
+    private int cachedSegment = -1;
+    private Map<Integer, Task> cachedSegmentTasks = Map.of();
+
+    TaskArchive(Path backupFile) {
+        this.backupFile = backupFile;
+    }
+
+    List<Task> load() throws ReadFromFileException, InvalidDataException {
+        Map<Integer, Task> result = new LinkedHashMap<>();
+        try {
+            for (Path segmentFile : getSegmentFiles()) {
+                int segment = getSegment(segmentFile);
+                nextSegment = Math.max(nextSegment, segment + 1);
+                try (DataInputStream input = openSegment(segmentFile)) {
+                    for (Task task : readSummary(input)) {
+                        segmentsByTaskId.put(task.getTaskId(), segment);
+                        result.put(task.getTaskId(), task);
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            throw new ReadFromFileException();
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    void write(List<Task> tasks) throws SaveToFileException {
+        int segment = nextSegment;
+        Path segmentFile = getSegmentFile(segment);
+        Path temporaryFile = segmentFile.resolveSibling(segmentFile.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(tasks.size());
+                for (Task task : tasks) {
+                    output.writeInt(task.getTaskId());
+                    if (!(task instanceof EpicTask) && task.areTimePropertiesSet()) {
+                        output.writeLong(task.getStartTime().toEpochSecond());
+                        output.writeInt(task.getDuration());
+                    } else {
+                        output.writeLong(NO_START_TIME);
+                        output.writeInt(0);
+                    }
+                }
+                GZIPOutputStream compressedOutput = new GZIPOutputStream(output);
+                ByteBuffer snapshot = BinarySnapshot.encode(tasks, List.of(), segment, 0);
+                compressedOutput.write(snapshot.array(), snapshot.arrayOffset(), snapshot.limit());
+                compressedOutput.finish();
+            }
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            FileBackedTaskManager.replaceFile(temporaryFile, segmentFile);
+        } catch (IOException exception) {
+            throw new SaveToFileException();
+        }
+        nextSegment++;
+        for (Task task : tasks) {
+            segmentsByTaskId.put(task.getTaskId(), segment);
+        }
+    }
+
+    Task get(int taskId) throws ReadFromFileException, InvalidDataException {
+        Integer segment = segmentsByTaskId.get(taskId);
+        if (segment == null) {
+            return null;
+        }
+        if (segment != cachedSegment) {
+            cachedSegmentTasks = readSegment(segment);
+            cachedSegment = segment;
+        }
+        return cachedSegmentTasks.get(taskId);
+    }
+
+    void forget(int taskId) {
+        segmentsByTaskId.remove(taskId);
+    }
+
+    void clear() throws SaveToFileException {
+        try {
+            for (Path segmentFile : getSegmentFiles()) {
+                Files.deleteIfExists(segmentFile);
+            }
+        } catch (IOException exception) {
+            throw new SaveToFileException();
+        }
+        segmentsByTaskId.clear();
+        cachedSegment = -1;
+        cachedSegmentTasks = Map.of();
+        nextSegment = 0;
+    }
+
+    private Map<Integer, Task> readSegment(int segment) throws ReadFromFileException, InvalidDataException {
+        BinarySnapshot snapshot;
+        try (DataInputStream input = openSegment(getSegmentFile(segment))) {
+            readSummary(input);
+            snapshot = BinarySnapshot.wrap(ByteBuffer.wrap(new GZIPInputStream(input).readAllBytes()));
+        } catch (IOException exception) {
+            throw new ReadFromFileException();
+        }
+        Map<Integer, Task> result = new HashMap<>();
+        Map<Integer, EpicTaskRollup> epicTaskRollups = new HashMap<>();
+        while (snapshot.hasNextTask()) {
+            Task task = snapshot.nextTask();
+            result.put(task.getTaskId(), task);
+            if (task instanceof EpicTask) {
+                epicTaskRollups.put(task.getTaskId(), new EpicTaskRollup());
+            }
+        }
+        for (Task task : result.values()) {
+            if (task instanceof SubTask && epicTaskRollups.containsKey(((SubTask) task).getMasterTaskId())) {
+                int masterTaskId = ((SubTask) task).getMasterTaskId();
+                ((EpicTask) result.get(masterTaskId)).addSubTaskId(task.getTaskId());
+                epicTaskRollups.get(masterTaskId).addSubTask(task);
+            }
+        }
+        epicTaskRollups.forEach((epicTaskId, rollup) -> rollup.applyTo((EpicTask) result.get(epicTaskId)));
+        return result;
+    }
+
+    private List<Task> readSummary(DataInputStream input) throws IOException, InvalidDataException {
+        if (input.readInt() != MAGIC) {
+            throw new InvalidDataException("Unsupported archive segment format");
+        }
+        int tasksCount = input.readInt();
+        List<Task> result = new ArrayList<>(tasksCount);
+        for (int i = 0; i < tasksCount; i++) {
+            Task task = new Task(null, null);
+            task.setTaskId(input.readInt());
+            long startTime = input.readLong();
+            int duration = input.readInt();
+            if (startTime != NO_START_TIME) {
+                task.setTimeProperties(ZonedDateTime.ofInstant(Instant.ofEpochSecond(startTime), UTC), duration);
+            }
+            result.add(task);
+        }
+        return result;
+    }
+
+    private DataInputStream openSegment(Path segmentFile) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(segmentFile)));
+    }
+
+    private Path getSegmentFile(int segment) {
+        return backupFile.resolveSibling(backupFile.getFileName() + ARCHIVE_SUFFIX + segment);
+    }
+
+    private List<Path> getSegmentFiles() throws IOException {
+        List<Path> result = new ArrayList<>();
+        Path directory = backupFile.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                backupFile.getFileName() + ARCHIVE_SUFFIX + "*")) {
+            for (Path file : files) {
+                if (getSegment(file) >= 0) {
+                    result.add(file);
+                }
+            }
+        }
+        result.sort((file1, file2) -> Integer.compare(getSegment(file1), getSegment(file2)));
+        return result;
+    }
+
+    private static int getSegment(Path segmentFile) {
+        String fileName = segmentFile.getFileName().toString();
+        try {
+            return Integer.parseInt(fileName.substring(fileName.lastIndexOf('.') + 1));
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package kanban.service;
+
+import kanban.exceptions.SaveToFileException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+class TaskJournal {
+    private static final String JOURNAL_SUFFIX = ".journal.";
+    private final Path backupFile;
+    private final long snapshotThreshold;
+    private final Durability durability;
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-journal-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService commitExecutor;
+    private final Object channelLock = new Object();
+    private final Object pendingLock = new Object();
+    private StringBuilder pendingRecords = new StringBuilder();
+    private CompletableFuture<Void> pendingCommit = new CompletableFuture<>();
+    private int generation;
+    private FileChannel channel;
+    private boolean hasUnforcedRecords;
+    private long size;
+    // Once a write fails the journal may be missing records, so every later append and flush fails as well
+    private volatile IOException failure;
+
+    TaskJournal(Path backupFile, int generation, long snapshotThreshold, Durability durability,
+                long commitIntervalMillis) throws SaveToFileException {
+        this.backupFile = backupFile;
+        this.generation = generation;
+        this.snapshotThreshold = snapshotThreshold;
+        this.durability = durability;
+        channel = openChannel(generation);
+        if (durability == Durability.FSYNC_PER_COMMIT) {
+            commitExecutor = null;
+        } else {
+            commitExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-journal-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            commitExecutor.scheduleWithFixedDelay(() -> commit(durability == Durability.GROUP_COMMIT),
+                    commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    CompletableFuture<Void> append(String record) throws SaveToFileException {
+        if (failure != null) {
+            throw new SaveToFileException();
+        }
+        size += getUtf8Length(record) + 1;
+        if (durability == Durability.FSYNC_PER_COMMIT) {
+            synchronized (channelLock) {
+                try {
+                    write(channel, record + "\n", true);
+                } catch (IOException exception) {
+                    failure = exception;
+                    throw new SaveToFileException();
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        synchronized (pendingLock) {
+            pendingRecords.append(record).append('\n');
+            return pendingCommit;
+        }
+    }
+
+    CompletableFuture<Void> flush() {
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        if (durability == Durability.FSYNC_PER_COMMIT) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            commitExecutor.execute(() -> commit(true).whenComplete((ignored, exception) -> {
+                if (exception == null) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(exception);
+                }
+            }));
+        } catch (RejectedExecutionException exception) {
+            // The journal is closed, close() has already forced every record it took
+            return failure == null ? CompletableFuture.completedFuture(null) : CompletableFuture.failedFuture(failure);
+        }
+        return result;
+    }
+
+    boolean needsSnapshot() {
+        return size >= snapshotThreshold;
+    }
+
+    int rotate() throws SaveToFileException {
+        if (failure != null) {
+            throw new SaveToFileException();
+        }
+        synchronized (channelLock) {
+            String records;
+            CompletableFuture<Void> commit;
+            synchronized (pendingLock) {
+                records = takePendingRecords();
+                commit = takePendingCommit();
+                generation++;
+            }
+            try {
+                write(channel, records, true);
+                channel.close();
+                commit.complete(null);
+            } catch (IOException exception) {
+                failure = exception;
+                commit.completeExceptionally(exception);
+                throw new SaveToFileException();
+            }
+            channel = openChannel(generation);
+            hasUnforcedRecords = false;
+        }
+        size = 0;
+        return generation;
+    }
+
+    void writeSnapshotInBackground(ByteBuffer snapshot, int snapshotGeneration) {
+        snapshotExecutor.execute(() -> {
+            try {
+                Path temporaryFile = backupFile.resolveSibling(backupFile.getFileName() + ".tmp");
+                BinarySnapshot.write(temporaryFile, snapshot, true);
+                try {
+                    Files.move(temporaryFile, backupFile, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException exception) {
+                    Files.move(temporaryFile, backupFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                for (Path journalFile : getJournalFiles(backupFile, 0)) {
+                    if (getGeneration(journalFile) < snapshotGeneration) {
+                        Files.deleteIfExists(journalFile);
+                    }
+                }
+            } catch (IOException exception) {
+                // Older journals are kept, so the next snapshot or a recovery still sees every record
+            }
+        });
+    }
+
+    void close() throws SaveToFileException {
+        if (commitExecutor != null) {
+            commitExecutor.shutdown();
+            awaitTermination(commitExecutor);
+            commit(true);
+        }
+        synchronized (channelLock) {
+            try {
+                channel.close();
+            } catch (IOException exception) {
+                throw new SaveToFileException();
+            }
+        }
+        snapshotExecutor.shutdown();
+        awaitTermination(snapshotExecutor);
+        if (failure != null) {
+            throw new SaveToFileException();
+        }
+    }
+
+    static List<Path> getJournalFiles(Path backupFile, int fromGeneration) throws IOException {
+        List<Path> result = new ArrayList<>();
+        Path directory = backupFile.toAbsolutePath().getParent();
+        String prefix = backupFile.getFileName() + JOURNAL_SUFFIX;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path file : files) {
+                if (getGeneration(file) >= fromGeneration) {
+                    result.add(file);
+                }
+            }
+        }
+        result.sort((file1, file2) -> Integer.compare(getGeneration(file1), getGeneration(file2)));
+        return result;
+    }
+
+    static int getGeneration(Path journalFile) {
+        String fileName = journalFile.getFileName().toString();
+        try {
+            return Integer.parseInt(fileName.substring(fileName.lastIndexOf('.') + 1));
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    private CompletableFuture<Void> commit(boolean force) {
+        synchronized (channelLock) {
+            String records;
+            CompletableFuture<Void> commit;
+            synchronized (pendingLock) {
+                records = takePendingRecords();
+                commit = takePendingCommit();
+            }
+            if (failure != null) {
+                commit.completeExceptionally(failure);
+                return commit;
+            }
+            if (records.isEmpty() && !(force && hasUnforcedRecords)) {
+                commit.complete(null);
+                return commit;
+            }
+            try {
+                write(channel, records, force);
+                hasUnforcedRecords = !force;
+                commit.complete(null);
+            } catch (IOException exception) {
+                failure = exception;
+                commit.completeExceptionally(exception);
+            }
+            return commit;
+        }
+    }
+
+    private String takePendingRecords() {
+        String records = pendingRecords.toString();
+        pendingRecords = new StringBuilder();
+        return records;
+    }
+
+    private CompletableFuture<Void> takePendingCommit() {
+        CompletableFuture<Void> commit = pendingCommit;
+        pendingCommit = new CompletableFuture<>();
+        return commit;
+    }
+
+    private FileChannel openChannel(int generation) throws SaveToFileException {
+        Path journalFile = backupFile.resolveSibling(backupFile.getFileName() + JOURNAL_SUFFIX + generation);
+        try {
+            FileChannel result = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            size = result.size();
+            return result;
+        } catch (IOException exception) {
+            throw new SaveToFileException();
+        }
+    }
+
+    private static void write(FileChannel channel, String records, boolean force) throws IOException {
+        if (!records.isEmpty()) {
+            ByteBuffer buffer = ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        if (force) {
+            channel.force(false);
+        }
+    }
+
+    private static int getUtf8Length(String value) {
+        int result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                result++;
+            } else if (c < 0x800) {
+                result += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                result += 4;
+                i++;
+            } else {
+                result += 3;
+            }
+        }
+        return result;
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,24 +1,44 @@
 package kanban.service;
 
 import kanban.model.*;
+
+import java.time.ZonedDateTime;
 import java.util.List;
 
 public interface TaskManager {
     List<Task> getAllTasks();
 
+    List<Task> getAllTasks(int afterTaskId, int limit);
+
     void deleteAllTasks();
 
     Task getTaskByTaskId(int taskId);
 
     int createTask(Task task);
 
+    List<Integer> createTasks(List<Task> tasks);
+
     int updateTask(Task task);
 
+    List<Integer> updateTasks(List<Task> tasks);
+
     int deleteTaskByTaskId(int taskId);
 
     List<Task> getPrioritizedTasks();
 
+    TaskPage getPrioritizedTasks(String after, int limit);
+
+    List<Task> getTasksBetween(ZonedDateTime from, ZonedDateTime to);
+
+    List<Task> getUpcomingTasks(ZonedDateTime after, int limit);
+
     List<SubTask> getAllSubTasksByEpicTaskId(int taskId);
 
     List<Task> getHistory();
+
+    TaskPage getHistory(String after, int limit);
+
+    TimeInterval getEarliestFreeTimeInterval(ZonedDateTime from, int duration);
+
+    List<TimeInterval> getFreeTimeIntervals(ZonedDateTime from, int duration, int count);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package kanban.service;
+
+import kanban.model.Task;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+public interface TaskStore {
+    Task get(int taskId);
+
+    boolean contains(int taskId);
+
+    Task put(Task task);
+
+    Task remove(int taskId);
+
+    int size();
+
+    void clear();
+
+    void forEach(Consumer<Task> action);
+
+    void forEachAfter(int afterTaskId, Predicate<Task> action);
+}
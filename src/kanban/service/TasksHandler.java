@@ -1,6 +1,9 @@
 package kanban.service;
 
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
 import kanban.model.*;
 import kanban.exceptions.*;
@@ -15,10 +18,17 @@ import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.OptionalInt;
 
 public class TasksHandler implements HttpHandler {
     private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy.HH:mm.VV");
     private static final Gson gson = (new GsonBuilder())
             .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeAdapter())
             .create();
@@ -44,6 +54,14 @@ public class TasksHandler implements HttpHandler {
                 handleGetPrioritizedTasks(exchange);
                 break;
             }
+            case GET_TASKS_BETWEEN: {
+                handleGetTasksBetween(exchange);
+                break;
+            }
+            case GET_UPCOMING_TASKS: {
+                handleGetUpcomingTasks(exchange);
+                break;
+            }
             case GET_ALL_SUBTASKS: {
                 handleGetAllSubtasks(exchange);
                 break;
@@ -52,10 +70,18 @@ public class TasksHandler implements HttpHandler {
                 handleCreateTask(exchange);
                 break;
             }
+            case CREATE_TASKS: {
+                handleCreateTasks(exchange);
+                break;
+            }
             case UPDATE_TASK: {
                 handleUpdateTask(exchange);
                 break;
             }
+            case UPDATE_TASKS: {
+                handleUpdateTasks(exchange);
+                break;
+            }
             case DELETE_TASK: {
                 handleDeleteTask(exchange);
                 break;
@@ -68,6 +94,10 @@ public class TasksHandler implements HttpHandler {
                 handleGetHistory(exchange);
                 break;
             }
+            case GET_FREE_TIME_INTERVALS: {
+                handleGetFreeTimeIntervals(exchange);
+                break;
+            }
             default: {
                 writeResponse(exchange, "Запрос сформирован неверно", 400);
             }
@@ -82,6 +112,9 @@ public class TasksHandler implements HttpHandler {
                 if (requestPathParts.length == 3 && requestPathParts[2].equals("history")) {
                     return Endpoint.GET_HISTORY;
                 }
+                if (requestPathParts.length == 3 && requestPathParts[2].equals("slots")) {
+                    return Endpoint.GET_FREE_TIME_INTERVALS;
+                }
                 if (requestPathParts.length == 4) {
                     if (requestPathParts[2].equals("subtask")) {
                         if (getTaskId(exchange).isPresent()) {
@@ -97,6 +130,12 @@ public class TasksHandler implements HttpHandler {
                         if (requestPathParts[3].equals("prioritized")) {
                             return Endpoint.GET_PRIORITIZED_TASKS;
                         }
+                        if (requestPathParts[3].equals("range")) {
+                            return Endpoint.GET_TASKS_BETWEEN;
+                        }
+                        if (requestPathParts[3].equals("upcoming")) {
+                            return Endpoint.GET_UPCOMING_TASKS;
+                        }
                         if (getTaskId(exchange).isPresent()) {
                             return Endpoint.GET_TASK;
                         } else {
@@ -124,6 +163,19 @@ public class TasksHandler implements HttpHandler {
                                 }
                             }
                         }
+                        if (requestPathParts[2].equals("batch")) {
+                            if (query != null && !query.contains("&")) {
+                                String[] queryStringParameter = query.split("=");
+                                if (queryStringParameter[0].equals("action")) {
+                                    if (queryStringParameter[1].equals("create")) {
+                                        return Endpoint.CREATE_TASKS;
+                                    }
+                                    if (queryStringParameter[1].equals("update")) {
+                                        return Endpoint.UPDATE_TASKS;
+                                    }
+                                }
+                            }
+                        }
                     } catch (IndexOutOfBoundsException exception) {
                         return Endpoint.UNSUPPORTED;
                     }
@@ -156,6 +208,19 @@ public class TasksHandler implements HttpHandler {
         return result;
     }
 
+    private static Map<String, String> getQueryParameters(HttpExchange exchange) {
+        Map<String, String> result = new HashMap<>();
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null || query.isEmpty()) {
+            return result;
+        }
+        for (String parameter : query.split("&")) {
+            String[] parameterParts = parameter.split("=", 2);
+            result.put(parameterParts[0], parameterParts.length == 2 ? parameterParts[1] : "");
+        }
+        return result;
+    }
+
     private static Task getTask(HttpExchange exchange) throws IOException {
         String taskType = exchange.getRequestURI().getPath().split("/")[2];
         Task task;
@@ -185,6 +250,47 @@ public class TasksHandler implements HttpHandler {
         return task;
     }
 
+    private static List<Task> getTasks(HttpExchange exchange) throws IOException, JsonParseException {
+        JsonElement jsonElement = JsonParser.parseString(
+                new String(exchange.getRequestBody().readAllBytes(), DEFAULT_CHARSET));
+        if (!jsonElement.isJsonArray()) {
+            throw new JsonParseException("Tasks batch must be a JSON array");
+        }
+        List<Task> tasks = new ArrayList<>();
+        for (JsonElement taskElement : jsonElement.getAsJsonArray()) {
+            if (!taskElement.isJsonObject() || !taskElement.getAsJsonObject().has("type")) {
+                throw new JsonParseException("Task in batch must be a JSON object with type");
+            }
+            TaskType taskType;
+            try {
+                taskType = TaskType.valueOf(taskElement.getAsJsonObject().get("type").getAsString());
+            } catch (IllegalArgumentException | IllegalStateException | UnsupportedOperationException exception) {
+                throw new JsonParseException("Unknown task type");
+            }
+            switch (taskType) {
+                case TASK: {
+                    tasks.add(gson.fromJson(taskElement, Task.class));
+                    break;
+                }
+                case EPIC_TASK: {
+                    tasks.add(gson.fromJson(taskElement, EpicTask.class));
+                    break;
+                }
+                case SUBTASK: {
+                    tasks.add(gson.fromJson(taskElement, SubTask.class));
+                    break;
+                }
+            }
+        }
+        return tasks;
+    }
+
+    private static void setNextCursor(HttpExchange exchange, TaskPage page) {
+        if (page.getNextCursor() != null) {
+            exchange.getResponseHeaders().set("X-Next-Cursor", page.getNextCursor());
+        }
+    }
+
     private static void writeResponse(HttpExchange exchange, String responseString, int responseCode)
         throws IOException {
         if (responseCode == 204) {
@@ -215,8 +321,26 @@ public class TasksHandler implements HttpHandler {
 
     private void handleGetAllTasks(HttpExchange exchange) throws IOException {
         try {
-            String allTasksJson = gson.toJson(taskManager.getAllTasks());
+            Map<String, String> parameters = getQueryParameters(exchange);
+            String allTasksJson;
+            if (parameters.isEmpty()) {
+                allTasksJson = gson.toJson(taskManager.getAllTasks());
+            } else {
+                if (!parameters.containsKey("limit")) {
+                    writeResponse(exchange, "Запрос сформирован неверно", 400);
+                    return;
+                }
+                int afterTaskId = Integer.parseInt(parameters.getOrDefault("after", "0"));
+                int limit = Integer.parseInt(parameters.get("limit"));
+                allTasksJson = gson.toJson(taskManager.getAllTasks(afterTaskId, limit));
+            }
             writeResponse(exchange, allTasksJson, 200);
+        } catch (NumberFormatException exception) {
+            writeResponse(exchange, "Запрос сформирован неверно", 400);
+        } catch (NoSuchTaskException exception) {
+            writeResponse(exchange, exception.getMessage(), 404);
+        } catch (TaskManagerException exception) {
+            writeResponse(exchange, exception.getMessage(), 400);
         } catch (FileBackedTaskManagerException exception) {
             writeResponse(exchange, "На сервере возникла проблема", 500);
         }
@@ -224,8 +348,67 @@ public class TasksHandler implements HttpHandler {
 
     private void handleGetPrioritizedTasks(HttpExchange exchange) throws IOException {
         try {
-            String prioritizedTasksJson = gson.toJson(taskManager.getPrioritizedTasks());
+            Map<String, String> parameters = getQueryParameters(exchange);
+            String prioritizedTasksJson;
+            if (parameters.isEmpty()) {
+                prioritizedTasksJson = gson.toJson(taskManager.getPrioritizedTasks());
+            } else {
+                if (!parameters.containsKey("limit")) {
+                    writeResponse(exchange, "Запрос сформирован неверно", 400);
+                    return;
+                }
+                int limit = Integer.parseInt(parameters.get("limit"));
+                TaskPage page = taskManager.getPrioritizedTasks(parameters.get("after"), limit);
+                setNextCursor(exchange, page);
+                prioritizedTasksJson = gson.toJson(page.getTasks());
+            }
             writeResponse(exchange, prioritizedTasksJson, 200);
+        } catch (NumberFormatException exception) {
+            writeResponse(exchange, "Запрос сформирован неверно", 400);
+        } catch (NoSuchTaskException exception) {
+            writeResponse(exchange, exception.getMessage(), 404);
+        } catch (TaskManagerException exception) {
+            writeResponse(exchange, exception.getMessage(), 400);
+        } catch (FileBackedTaskManagerException exception) {
+            writeResponse(exchange, "На сервере возникла проблема", 500);
+        }
+    }
+
+    private void handleGetTasksBetween(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> parameters = getQueryParameters(exchange);
+            if (!parameters.containsKey("from") || !parameters.containsKey("to")) {
+                writeResponse(exchange, "Запрос сформирован неверно", 400);
+                return;
+            }
+            ZonedDateTime from = ZonedDateTime.parse(parameters.get("from"), DATE_TIME_FORMATTER);
+            ZonedDateTime to = ZonedDateTime.parse(parameters.get("to"), DATE_TIME_FORMATTER);
+            String tasksJson = gson.toJson(taskManager.getTasksBetween(from, to));
+            writeResponse(exchange, tasksJson, 200);
+        } catch (DateTimeParseException exception) {
+            writeResponse(exchange, "Запрос сформирован неверно", 400);
+        } catch (TaskManagerException exception) {
+            writeResponse(exchange, exception.getMessage(), 400);
+        } catch (FileBackedTaskManagerException exception) {
+            writeResponse(exchange, "На сервере возникла проблема", 500);
+        }
+    }
+
+    private void handleGetUpcomingTasks(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> parameters = getQueryParameters(exchange);
+            if (!parameters.containsKey("after") || !parameters.containsKey("limit")) {
+                writeResponse(exchange, "Запрос сформирован неверно", 400);
+                return;
+            }
+            ZonedDateTime after = ZonedDateTime.parse(parameters.get("after"), DATE_TIME_FORMATTER);
+            int limit = Integer.parseInt(parameters.get("limit"));
+            String tasksJson = gson.toJson(taskManager.getUpcomingTasks(after, limit));
+            writeResponse(exchange, tasksJson, 200);
+        } catch (DateTimeParseException | NumberFormatException exception) {
+            writeResponse(exchange, "Запрос сформирован неверно", 400);
+        } catch (TaskManagerException exception) {
+            writeResponse(exchange, exception.getMessage(), 400);
         } catch (FileBackedTaskManagerException exception) {
             writeResponse(exchange, "На сервере возникла проблема", 500);
         }
@@ -275,6 +458,36 @@ public class TasksHandler implements HttpHandler {
         }
     }
 
+    private void handleCreateTasks(HttpExchange exchange) throws IOException {
+        try {
+            List<Integer> result = taskManager.createTasks(getTasks(exchange));
+            writeResponse(exchange, gson.toJson(result), 200);
+        } catch (JsonParseException exception) {
+            writeResponse(exchange, "Получен некорректный JSON", 400);
+        } catch (NoSuchTaskException exception) {
+            writeResponse(exchange, exception.getMessage(), 404);
+        } catch (TaskManagerException exception) {
+            writeResponse(exchange, exception.getMessage(), 400);
+        } catch (FileBackedTaskManagerException exception) {
+            writeResponse(exchange, "На сервере возникла проблема", 500);
+        }
+    }
+
+    private void handleUpdateTasks(HttpExchange exchange) throws IOException {
+        try {
+            List<Integer> result = taskManager.updateTasks(getTasks(exchange));
+            writeResponse(exchange, gson.toJson(result), 200);
+        } catch (JsonParseException exception) {
+            writeResponse(exchange, "Получен некорректный JSON", 400);
+        } catch (NoSuchTaskException exception) {
+            writeResponse(exchange, exception.getMessage(), 404);
+        } catch (TaskManagerException exception) {
+            writeResponse(exchange, exception.getMessage(), 400);
+        } catch (FileBackedTaskManagerException exception) {
+            writeResponse(exchange, "На сервере возникла проблема", 500);
+        }
+    }
+
     private void handleDeleteTask(HttpExchange exchange) throws IOException {
         try {
             int result = taskManager.deleteTaskByTaskId(getTaskId(exchange).getAsInt());
@@ -297,8 +510,48 @@ public class TasksHandler implements HttpHandler {
 
     private void handleGetHistory(HttpExchange exchange) throws IOException {
         try {
-            String historyJson = gson.toJson(taskManager.getHistory());
+            Map<String, String> parameters = getQueryParameters(exchange);
+            String historyJson;
+            if (parameters.isEmpty()) {
+                historyJson = gson.toJson(taskManager.getHistory());
+            } else {
+                if (!parameters.containsKey("limit")) {
+                    writeResponse(exchange, "Запрос сформирован неверно", 400);
+                    return;
+                }
+                int limit = Integer.parseInt(parameters.get("limit"));
+                TaskPage page = taskManager.getHistory(parameters.get("after"), limit);
+                setNextCursor(exchange, page);
+                historyJson = gson.toJson(page.getTasks());
+            }
             writeResponse(exchange, historyJson, 200);
+        } catch (NumberFormatException exception) {
+            writeResponse(exchange, "Запрос сформирован неверно", 400);
+        } catch (NoSuchTaskException exception) {
+            writeResponse(exchange, exception.getMessage(), 404);
+        } catch (TaskManagerException exception) {
+            writeResponse(exchange, exception.getMessage(), 400);
+        } catch (FileBackedTaskManagerException exception) {
+            writeResponse(exchange, "На сервере возникла проблема", 500);
+        }
+    }
+
+    private void handleGetFreeTimeIntervals(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> parameters = getQueryParameters(exchange);
+            if (!parameters.containsKey("from") || !parameters.containsKey("duration")) {
+                writeResponse(exchange, "Запрос сформирован неверно", 400);
+                return;
+            }
+            ZonedDateTime from = ZonedDateTime.parse(parameters.get("from"), DATE_TIME_FORMATTER);
+            int duration = Integer.parseInt(parameters.get("duration"));
+            int count = Integer.parseInt(parameters.getOrDefault("count", "1"));
+            String freeTimeIntervalsJson = gson.toJson(taskManager.getFreeTimeIntervals(from, duration, count));
+            writeResponse(exchange, freeTimeIntervalsJson, 200);
+        } catch (DateTimeParseException | NumberFormatException exception) {
+            writeResponse(exchange, "Запрос сформирован неверно", 400);
+        } catch (TaskManagerException exception) {
+            writeResponse(exchange, exception.getMessage(), 400);
         } catch (FileBackedTaskManagerException exception) {
             writeResponse(exchange, "На сервере возникла проблема", 500);
         }
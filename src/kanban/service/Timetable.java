@@ -0,0 +1,13 @@
+package kanban.service;
+
+import kanban.model.Task;
+
+public interface Timetable {
+    boolean isTaskTimeValid(Task task, Task replacedTask);
+
+    void addTask(Task task);
+
+    void removeTask(Task task);
+
+    void clear();
+}
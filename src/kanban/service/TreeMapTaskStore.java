@@ -0,0 +1,56 @@
+package kanban.service;
+
+import kanban.model.Task;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+public class TreeMapTaskStore implements TaskStore {
+    private final NavigableMap<Integer, Task> tasks = new TreeMap<>();
+
+    @Override
+    public Task get(int taskId) {
+        return tasks.get(taskId);
+    }
+
+    @Override
+    public boolean contains(int taskId) {
+        return tasks.containsKey(taskId);
+    }
+
+    @Override
+    public Task put(Task task) {
+        return tasks.put(task.getTaskId(), task);
+    }
+
+    @Override
+    public Task remove(int taskId) {
+        return tasks.remove(taskId);
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public void clear() {
+        tasks.clear();
+    }
+
+    @Override
+    public void forEach(Consumer<Task> action) {
+        tasks.values().forEach(action);
+    }
+
+    @Override
+    public void forEachAfter(int afterTaskId, Predicate<Task> action) {
+        for (Task task : tasks.tailMap(afterTaskId, false).values()) {
+            if (!action.test(task)) {
+                return;
+            }
+        }
+    }
+}
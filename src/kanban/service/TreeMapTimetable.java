@@ -0,0 +1,58 @@
+package kanban.service;
+
+import kanban.model.*;
+
+import java.time.ZonedDateTime;
+import java.time.chrono.ChronoZonedDateTime;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public class TreeMapTimetable implements Timetable {
+    private final NavigableMap<ZonedDateTime, OccupiedTimeInterval<Integer>> timetable =
+            new TreeMap<>(ChronoZonedDateTime.timeLineOrder());
+
+    @Override
+    public boolean isTaskTimeValid(Task task, Task replacedTask) {
+        ZonedDateTime taskStartTime = task.getStartTime();
+        ZonedDateTime taskEndTime = task.getEndTime();
+        ZonedDateTime from = timetable.floorKey(taskStartTime);
+        if (from == null) {
+            from = taskStartTime;
+        }
+        for (OccupiedTimeInterval<Integer> occupiedInterval : timetable.tailMap(from, true).values()) {
+            if (!occupiedInterval.getFrom().isBefore(taskEndTime)) {
+                break;
+            }
+            if (occupiedInterval.getTo().isAfter(taskStartTime)
+                    && (replacedTask == null || occupiedInterval.getValue() != replacedTask.getTaskId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        if (!task.areTimePropertiesSet() || task instanceof EpicTask) {
+            return;
+        }
+        timetable.put(task.getStartTime(),
+                new OccupiedTimeInterval<>(task.getStartTime(), task.getEndTime(), task.getTaskId()));
+    }
+
+    @Override
+    public void removeTask(Task task) {
+        if (!task.areTimePropertiesSet() || task instanceof EpicTask) {
+            return;
+        }
+        OccupiedTimeInterval<Integer> occupiedInterval = timetable.get(task.getStartTime());
+        if (occupiedInterval != null && occupiedInterval.getValue() == task.getTaskId()) {
+            timetable.remove(task.getStartTime());
+        }
+    }
+
+    @Override
+    public void clear() {
+        timetable.clear();
+    }
+}
@@ -0,0 +1,101 @@
+package kanban.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import kanban.service.ZonedDateTimeAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntLinkedSetTest {
+    public IntLinkedSet set;
+
+    @BeforeEach
+    public void beforeEach() {
+        set = new IntLinkedSet();
+    }
+
+    @Test
+    public void addAndContains() {
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(5));
+        assertTrue(set.add(0));
+        assertTrue(set.add(-3));
+        assertFalse(set.add(5));
+        assertFalse(set.add(0));
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(5));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-3));
+        assertFalse(set.contains(4));
+        assertArrayEquals(new int[] {5, 0, -3}, set.toArray());
+        assertEquals("[5, 0, -3]", set.toString());
+    }
+
+    @Test
+    public void remove() {
+        for (int i = 1; i <= 1000; i++) {
+            set.add(i);
+        }
+        for (int i = 1; i <= 1000; i += 2) {
+            assertTrue(set.remove(i));
+        }
+        assertFalse(set.remove(1));
+        assertEquals(500, set.size());
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals(i % 2 == 0, set.contains(i));
+        }
+        assertEquals(2, set.get(0));
+        assertEquals(1000, set.get(499));
+        assertThrows(IndexOutOfBoundsException.class, () -> set.get(500));
+
+        set.add(1);
+        assertEquals(1, set.get(500));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(2));
+    }
+
+    @Test
+    public void readOnlyView() {
+        IntSetView view = set.asReadOnlyView();
+        set.add(3);
+        set.add(1);
+        set.add(2);
+        assertFalse(view instanceof IntLinkedSet);
+        assertEquals(3, view.size());
+        assertTrue(view.contains(1));
+
+        List<Integer> values = new ArrayList<>();
+        view.forEach(values::add);
+        assertArrayEquals(new Integer[] {3, 1, 2}, values.toArray());
+
+        set.remove(1);
+        assertArrayEquals(new int[] {3, 2}, view.toArray());
+    }
+
+    @Test
+    public void json() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeAdapter())
+                .create();
+        set.add(3);
+        set.add(5);
+        assertEquals("[3,5]", gson.toJson(set));
+        assertEquals(set, gson.fromJson("[3,5]", IntLinkedSet.class));
+
+        EpicTask epicTask = new EpicTask("a", "b");
+        epicTask.addSubTaskId(3);
+        epicTask.addSubTaskId(5);
+        assertTrue(gson.toJson(epicTask).contains("\"subTasksIds\":[3,5]"));
+        assertArrayEquals(new Integer[] {3, 5},
+                gson.fromJson(gson.toJson(epicTask), EpicTask.class).getSubTasksIds().toArray());
+    }
+}
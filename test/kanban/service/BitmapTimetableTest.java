@@ -0,0 +1,38 @@
+package kanban.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapTimetableTest extends TimetableTest<BitmapTimetable> {
+    @BeforeEach
+    public void setTimetable() {
+        setTimetable(new BitmapTimetable());
+    }
+
+    @Test
+    public void isFree() {
+        BitmapTimetable bitmapTimetable = (BitmapTimetable) timetable;
+        timetable.addTask(createTask(1, atMinute(63), 2));
+        timetable.addTask(createTask(2, atMinute(65_530), 10));
+
+        assertTrue(bitmapTimetable.isFree(0, 63));
+        assertFalse(bitmapTimetable.isFree(0, 64));
+        assertFalse(bitmapTimetable.isFree(64, 65));
+        assertTrue(bitmapTimetable.isFree(65, 65_530));
+        assertFalse(bitmapTimetable.isFree(65_535, 65_537));
+        assertFalse(bitmapTimetable.isFree(65_539, 1_000_000));
+        assertTrue(bitmapTimetable.isFree(65_540, 1_000_000));
+
+        timetable.removeTask(createTask(2, atMinute(65_530), 10));
+        assertTrue(bitmapTimetable.isFree(65, 1_000_000));
+        assertFalse(bitmapTimetable.isFree(60, 70));
+    }
+
+    private ZonedDateTime atMinute(long minute) {
+        return InMemoryTaskManager.START_TIME.plusMinutes(minute);
+    }
+}
@@ -0,0 +1,10 @@
+package kanban.service;
+
+import org.junit.jupiter.api.BeforeEach;
+
+class DenseTaskStoreTest extends TaskStoreTest<DenseTaskStore> {
+    @BeforeEach
+    public void setStore() {
+        setStore(new DenseTaskStore());
+    }
+}
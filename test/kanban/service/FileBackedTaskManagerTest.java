@@ -1,13 +1,24 @@
 package kanban.service;
 
+import kanban.exceptions.InvalidDataException;
+import kanban.exceptions.NoSuchTaskException;
 import kanban.exceptions.ReadFromFileException;
+import kanban.exceptions.TaskTimeException;
 import kanban.model.*;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -54,4 +65,208 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertTaskListEquals(manager.getHistory(), newManager.getHistory());
         assertTaskListEquals(manager.getAllTasks(), newManager.getAllTasks());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void readsSaveOnlyHistoryTest(@TempDir Path directory) throws IOException {
+        Path backupFile = directory.resolve("BackupFileTest.csv");
+        Path historyFile = directory.resolve("BackupFileTest.csv.history");
+        FileBackedTaskManager manager = Managers.getFileBackedTaskManager(backupFile.toString());
+        createThreeDifferentTasks(manager);
+        String tasksContent = Files.readString(backupFile);
+        assertFalse(Files.exists(historyFile));
+
+        manager.getTaskByTaskId(3);
+        manager.getAllSubTasksByEpicTaskId(2);
+        manager.getTaskByTaskId(1);
+        assertEquals(tasksContent, Files.readString(backupFile));
+        assertEquals("3\n3\n1\n", Files.readString(historyFile));
+
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadFromFile(backupFile);
+        assertTaskListEquals(manager.getHistory(), newManager.getHistory());
+
+        manager.deleteTaskByTaskId(1);
+        assertFalse(Files.exists(historyFile));
+        manager.getTaskByTaskId(2);
+        Files.writeString(historyFile, "7,3,2\n2,");
+        newManager = FileBackedTaskManager.loadFromFile(backupFile);
+        assertTaskListEquals(manager.getHistory(), newManager.getHistory());
+    }
+
+    @Test
+    public void binarySnapshotTest(@TempDir Path directory) throws IOException {
+        Path backupFile = directory.resolve("BackupFileTest.bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(1, Managers.getDefaultHistory(), backupFile,
+                SnapshotFormat.BINARY);
+        manager.createTask(new Task("Имя, с запятой", "описание"));
+        EpicTask epicTask = new EpicTask("c", null);
+        manager.createTask(epicTask);
+        SubTask subTask = new SubTask("e", "f", 2);
+        subTask.setTimeProperties(startTime, 45);
+        subTask.setStatus(TaskStatus.DONE);
+        manager.createTask(subTask);
+        manager.createTask(new Task("g", "h"));
+        manager.deleteTaskByTaskId(4);
+        manager.getTaskByTaskId(3);
+        manager.getTaskByTaskId(1);
+        assertTrue(BinarySnapshot.isBinarySnapshot(backupFile));
+
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadFromFile(backupFile);
+        assertTaskListEquals(manager.getHistory(), newManager.getHistory());
+        assertTaskListEquals(manager.getAllTasksNoHistory(), newManager.getAllTasksNoHistory());
+        assertEquals("Имя, с запятой", newManager.getTaskByTaskId(1).getName());
+        assertEquals(5, newManager.createTask(new Task("i", "j")));
+        assertTrue(BinarySnapshot.isBinarySnapshot(backupFile));
+
+        Path csvFile = directory.resolve("BackupFileTest.csv");
+        manager.exportToCsv(csvFile);
+        assertFalse(BinarySnapshot.isBinarySnapshot(csvFile));
+        List<String> csvLines = Files.readAllLines(csvFile);
+        assertEquals(List.of("1,TASK,Имя, с запятой,NEW,описание,null,0", "2,EPIC_TASK,c,DONE,null",
+                "3,SUBTASK,e,DONE,f,04.03.2023.12:00.UTC,45,2", "", "3,1"), csvLines);
+
+        Files.write(backupFile, new byte[] {0x4B, 0x4E, 0x42, 0x4E, 0, 9});
+        assertThrows(InvalidDataException.class, () -> FileBackedTaskManager.loadFromFile(backupFile));
+    }
+
+    @Test
+    public void lazyLoadTest(@TempDir Path directory) {
+        Path backupFile = directory.resolve("BackupFileTest.bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(1, Managers.getDefaultHistory(), backupFile,
+                SnapshotFormat.BINARY);
+        Task task = new Task("a", "b");
+        task.setTimeProperties(startTime, 60);
+        manager.createTask(task);
+        manager.createTask(new EpicTask("c", "d"));
+        SubTask subTask = new SubTask("e", "f", 2);
+        subTask.setTimeProperties(startTime.plusMinutes(120), 30);
+        subTask.setStatus(TaskStatus.DONE);
+        manager.createTask(subTask);
+        manager.createTask(new SubTask("g", "h", 2));
+        manager.createTask(new Task("i", "j"));
+        manager.getTaskByTaskId(4);
+        manager.getTaskByTaskId(1);
+
+        FileBackedTaskManager lazyManager = FileBackedTaskManager.loadLazily(backupFile, 1);
+        assertEquals(List.of(4, 1), lazyManager.getHistory().stream().map(Task::getTaskId)
+                .collect(Collectors.toList()));
+        assertTaskListEquals(manager.getAllTasksNoHistory(), lazyManager.getAllTasksNoHistory());
+        assertTaskListEquals(manager.getPrioritizedTasks(), lazyManager.getPrioritizedTasks());
+        assertEquals("b", lazyManager.getTasksBetween(startTime, startTime.plusMinutes(30)).get(0)
+                .getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, lazyManager.getTaskByTaskId(2).getStatus());
+        assertThrows(TaskTimeException.class, () -> lazyManager.createTask(task));
+
+        Task updatedTask = new Task("k", "l");
+        updatedTask.setTaskId(5);
+        updatedTask.setStatus(TaskStatus.DONE);
+        lazyManager.updateTask(updatedTask);
+        lazyManager.deleteTaskByTaskId(4);
+        assertEquals(TaskStatus.DONE, lazyManager.getTaskByTaskId(2).getStatus());
+        assertEquals(6, lazyManager.createTask(new Task("m", "n")));
+
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadFromFile(backupFile);
+        assertTaskListEquals(lazyManager.getAllTasksNoHistory(), newManager.getAllTasksNoHistory());
+        assertEquals("l", newManager.getTaskByTaskId(5).getDescription());
+        assertEquals("f", lazyManager.getTaskByTaskId(3).getDescription());
+    }
+
+    @Test
+    public void archiveTest(@TempDir Path directory) {
+        Path backupFile = directory.resolve("BackupFileTest.csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(1, Managers.getDefaultHistory(), backupFile);
+        Task task = new Task("a", "b");
+        task.setTimeProperties(startTime, 60);
+        task.setStatus(TaskStatus.DONE);
+        manager.createTask(task);
+        manager.createTask(new EpicTask("c", "d"));
+        for (int i = 0; i < 2; i++) {
+            SubTask subTask = new SubTask("e", "f", 2);
+            subTask.setTimeProperties(startTime.plusMinutes(120 + 60 * i), 30);
+            subTask.setStatus(TaskStatus.DONE);
+            manager.createTask(subTask);
+        }
+        Task newTask = new Task("g", "h");
+        newTask.setTimeProperties(startTime.plusMinutes(240), 60);
+        manager.createTask(newTask);
+        Task lateTask = new Task("i", "j");
+        lateTask.setTimeProperties(startTime.plusDays(1), 60);
+        lateTask.setStatus(TaskStatus.DONE);
+        manager.createTask(lateTask);
+        manager.getTaskByTaskId(1);
+
+        assertEquals(List.of(1, 2, 3, 4), manager.archiveTasks(startTime.plusMinutes(300)));
+        assertTrue(Files.exists(directory.resolve("BackupFileTest.csv.archive.0")));
+        assertTrue(manager.getHistory().isEmpty());
+        for (FileBackedTaskManager checkedManager : List.of(manager, FileBackedTaskManager.loadFromFile(backupFile))) {
+            assertEquals(List.of(5, 6), checkedManager.getAllTasksNoHistory().stream().map(Task::getTaskId)
+                    .collect(Collectors.toList()));
+            assertEquals("b", checkedManager.getTaskByTaskId(1).getDescription());
+            EpicTask epicTask = (EpicTask) checkedManager.getTaskByTaskId(2);
+            assertEquals(List.of(3, 4), epicTask.getSubTasksIds());
+            assertEquals(TaskStatus.DONE, epicTask.getStatus());
+            assertEquals(90, epicTask.getDuration());
+
+            Task intersectingTask = new Task("k", "l");
+            intersectingTask.setTimeProperties(startTime.plusMinutes(30), 60);
+            assertThrows(TaskTimeException.class, () -> checkedManager.createTask(intersectingTask));
+            ZonedDateTime utcStartTime = startTime.withZoneSameInstant(ZoneId.of("UTC"));
+            assertEquals(new TimeInterval(utcStartTime.plusMinutes(60), utcStartTime.plusMinutes(120)),
+                    checkedManager.getEarliestFreeTimeInterval(startTime, 60));
+            assertEquals(new TimeInterval(utcStartTime.plusMinutes(300), utcStartTime.plusMinutes(390)),
+                    checkedManager.getEarliestFreeTimeInterval(startTime, 90));
+        }
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadFromFile(backupFile);
+        assertEquals(7, newManager.createTask(new Task("m", "n")));
+        newManager.deleteAllTasks();
+        assertFalse(Files.exists(directory.resolve("BackupFileTest.csv.archive.0")));
+        assertThrows(NoSuchTaskException.class, () -> newManager.getTaskByTaskId(1));
+
+        newManager.createTask(task);
+        newManager.setArchiveAge(Duration.ofDays(1));
+        newManager.createTask(new Task("o", "p"));
+        assertEquals(1, newManager.getAllTasksNoHistory().size());
+        assertEquals("a", FileBackedTaskManager.loadFromFile(backupFile).getTaskByTaskId(8).getName());
+    }
+
+    @Test
+    public void restoreTest(@TempDir Path directory) throws IOException {
+        Path backupFile = directory.resolve("BackupFileTest.csv");
+        for (boolean parallelParsing : new boolean[] {false, true}) {
+            Files.write(backupFile, List.of(
+                    "1,TASK,a,NEW,b,04.03.2023.12:00.UTC,60",
+                    "3,SUBTASK,e,DONE,f,04.03.2023.14:00.UTC,30,2",
+                    "2,EPIC_TASK,c,NEW,d",
+                    "4,SUBTASK,g,NEW,h,null,0,2",
+                    "",
+                    "4,9,1"));
+            FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(backupFile, parallelParsing, true);
+            assertEquals(List.of(4, 1), manager.getHistory().stream().map(Task::getTaskId)
+                    .collect(Collectors.toList()));
+            EpicTask epicTask = (EpicTask) manager.getTaskByTaskIdNoHistory(2);
+            assertEquals(List.of(3, 4), epicTask.getSubTasksIds());
+            assertEquals(TaskStatus.IN_PROGRESS, epicTask.getStatus());
+            assertFalse(epicTask.areTimePropertiesSet());
+            assertEquals(List.of(1, 3, 4, 2), manager.getPrioritizedTasks().stream().map(Task::getTaskId)
+                    .collect(Collectors.toList()));
+            assertEquals(5, manager.createTask(new Task("i", "j")));
+            Task task = new Task("k", "l");
+            task.setTimeProperties(startTime.plusMinutes(30), 60);
+            assertThrows(TaskTimeException.class, () -> manager.createTask(task));
+        }
+
+        Files.write(backupFile, List.of(
+                "1,TASK,a,NEW,b,04.03.2023.12:00.UTC,60",
+                "2,TASK,c,NEW,d,04.03.2023.12:30.UTC,60",
+                "",
+                ""));
+        assertEquals(2, FileBackedTaskManager.loadFromFile(backupFile).getAllTasksNoHistory().size());
+        InvalidDataException exception = assertThrows(InvalidDataException.class,
+                () -> FileBackedTaskManager.loadFromFile(backupFile, false, true));
+        assertEquals("Restored Tasks intersect with each other", exception.getMessage());
+
+        Files.write(backupFile, List.of("1,SUBTASK,a,NEW,b,null,0,2", "", ""));
+        exception = assertThrows(InvalidDataException.class,
+                () -> FileBackedTaskManager.loadFromFile(backupFile, false, true));
+        assertEquals("Restored SubTask has no EpicTask with such masterTaskId", exception.getMessage());
+    }
+}
@@ -105,4 +105,42 @@ abstract class HistoryManagerTest<T extends HistoryManager> {
         assertNotNull(manager.getHistory());
         assertTrue(manager.getHistory().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getHistoryPage() {
+        assertTrue(manager.getHistory(null, 10).getTasks().isEmpty());
+        assertNull(manager.getHistory(null, 10).getNextCursor());
+
+        Task task1 = new Task("a", "b");
+        Task task2 = new Task("c", "d");
+        Task task3 = new Task("e", "f");
+
+        task1.setTaskId(1);
+        task2.setTaskId(2);
+        task3.setTaskId(3);
+
+        manager.add(task3);
+        manager.add(task1);
+        manager.add(task2);
+
+        TaskPage page = manager.getHistory(null, 2);
+        assertArrayEquals(new Task[] {task3, task1}, page.getTasks().toArray());
+        TaskPage nextPage = manager.getHistory(page.getNextCursor(), 2);
+        assertArrayEquals(new Task[] {task2}, nextPage.getTasks().toArray());
+        assertTrue(manager.getHistory(nextPage.getNextCursor(), 2).getTasks().isEmpty());
+
+        manager.remove(1);
+        assertArrayEquals(new Task[] {task2}, manager.getHistory(page.getNextCursor(), 2).getTasks().toArray());
+        manager.add(task3);
+        assertArrayEquals(new Task[] {task2, task3}, manager.getHistory(page.getNextCursor(), 2).getTasks().toArray());
+
+        HistoryManagerException exception = assertThrows(HistoryManagerException.class,
+                () -> manager.getHistory("first", 2));
+        assertEquals("Could not read page cursor", exception.getMessage());
+        exception = assertThrows(HistoryManagerException.class, () -> manager.getHistory(null, 0));
+        assertEquals("Number of Tasks must be positive", exception.getMessage());
+
+        manager.clear();
+        assertTrue(manager.getHistory(page.getNextCursor(), 2).getTasks().isEmpty());
+    }
+}
@@ -1,5 +1,6 @@
 package kanban.service;
 
+import kanban.exceptions.HttpTaskManagerException;
 import kanban.model.*;
 
 import org.junit.jupiter.api.AfterEach;
@@ -8,6 +9,9 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -57,4 +61,65 @@ class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
         assertTaskListEquals(manager.getHistory(), newManager.getHistory());
         assertTaskListEquals(manager.getAllTasks(), newManager.getAllTasks());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void invalidDataOnServerTest() throws IOException, InterruptedException {
+        KVTaskClient client = new KVTaskClient(new URL("http://localhost:8078"));
+        client.put("page.0000000000", "1,TASK,a,NEW,b,null,0/nxtTsk/2,SUBTASK,e,NEW,f,null,0,7/nxtTsk/");
+        HttpTaskManagerException exception = assertThrows(HttpTaskManagerException.class,
+                () -> Managers.getHttpTaskManager(new URL("http://localhost:8078")));
+        assertEquals("Could not load manager state due to invalid data on server", exception.getMessage());
+
+        client.put("page.0000000000", "1,TASK,a/nxtTsk/");
+        assertThrows(HttpTaskManagerException.class,
+                () -> Managers.getHttpTaskManager(new URL("http://localhost:8078")));
+    }
+
+    @Test
+    public void pagedSyncTest() throws IOException, InterruptedException {
+        KVTaskClient client = new KVTaskClient(new URL("http://localhost:8078"));
+        createThreeDifferentTasks();
+        manager.createTask(new SubTask("g", "h", 2));
+        assertEquals("1,TASK,a,NEW,b,null,0/nxtTsk/2,EPIC_TASK,c,NEW,d/nxtTsk/3,SUBTASK,e,NEW,f,null,0,2/nxtTsk/"
+                + "4,SUBTASK,g,NEW,h,null,0,2/nxtTsk/", client.load("page.0000000000"));
+        assertEquals("", client.load("tasks"));
+
+        Task task = new Task("i", "j");
+        task.setTaskId(1);
+        manager.updateTask(task);
+        assertTrue(client.load("page.0000000000").startsWith("1,TASK,i,NEW,j,null,0/nxtTsk/"));
+        manager.getTaskByTaskId(1);
+        manager.getTaskByTaskId(3);
+        manager.getTaskByTaskId(1);
+        assertEquals("1,3,1", client.load("history.views"));
+        assertEquals(List.of(3, 1), Managers.getHttpTaskManager(new URL("http://localhost:8078")).getHistory()
+                .stream().map(Task::getTaskId).collect(Collectors.toList()));
+
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < HttpTaskManager.PAGE_SIZE * 2; i++) {
+            tasks.add(new Task("k", "l"));
+        }
+        manager.createTasks(tasks);
+        assertEquals(3, client.scan("page.", "", 10).size());
+        manager.deleteTaskByTaskId(2);
+        manager.deleteTaskByTaskId(1);
+        assertTrue(client.load("page.0000000000").startsWith("5,TASK,k,NEW,l,null,0/nxtTsk/"));
+        assertEquals("empty", client.load("history"));
+        assertEquals("empty", client.load("history.views"));
+
+        HttpTaskManager newManager = Managers.getHttpTaskManager(new URL("http://localhost:8078"));
+        assertTaskListEquals(manager.getAllTasks(), newManager.getAllTasks());
+        newManager.deleteAllTasks();
+        assertTrue(client.scan("page.", "", 10).isEmpty());
+        assertTrue(Managers.getHttpTaskManager(new URL("http://localhost:8078")).getAllTasks().isEmpty());
+
+        kvServer.stop();
+        kvServer = new KVServer();
+        kvServer.start();
+        client = new KVTaskClient(new URL("http://localhost:8078"));
+        client.put("tasks", "1,TASK,a,NEW,b,null,0/nxtTsk/");
+        newManager = Managers.getHttpTaskManager(new URL("http://localhost:8078"));
+        assertEquals("a", newManager.getTaskByTaskId(1).getName());
+        assertEquals("1,TASK,a,NEW,b,null,0/nxtTsk/", client.load("page.0000000000"));
+    }
+}
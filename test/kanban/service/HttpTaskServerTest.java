@@ -225,4 +225,101 @@ class HttpTaskServerTest {
         response = client.send(createGetRequest("/task/all"), handler);
         assertEquals(gson.toJson(allTasks), response.body());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void freeTimeIntervalsTest() throws IOException, InterruptedException {
+        HttpResponse<String> response;
+
+        response = client.send(createGetRequest("/slots?from=04.03.2023.15:00.UTC&duration=30"), handler);
+        assertEquals(200, response.statusCode());
+        List<TimeInterval> freeTimeIntervals = new ArrayList<>();
+        freeTimeIntervals.add(new TimeInterval(startTime.withZoneSameInstant(ZoneId.of("UTC")).plusMinutes(180),
+                startTime.withZoneSameInstant(ZoneId.of("UTC")).plusMinutes(210)));
+        assertEquals(gson.toJson(freeTimeIntervals), response.body());
+
+        response = client.send(createGetRequest("/slots?duration=30"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createGetRequest("/slots?from=04.03.2023.15:00.UTC&duration=thirty"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createGetRequest("/slots?from=04.03.2023.15:00.UTC&duration=30&count=0"), handler);
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void batchBadRequestTest() throws IOException, InterruptedException {
+        HttpResponse<String> response;
+
+        response = client.send(createPostRequest("[]", "/batch?action=set"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createPostRequest(gson.toJson(new Task("a", "b")), "/batch?action=create"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createPostRequest("[{\"name\":\"a\"}]", "/batch?action=create"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createPostRequest("[{\"type\":\"STORY\"}]", "/batch?action=create"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createPostRequest(
+                "[{\"type\":\"SUBTASK\",\"name\":\"a\",\"masterTaskId\":1000}]", "/batch?action=create"),
+                handler);
+        assertEquals(404, response.statusCode());
+
+        response = client.send(createPostRequest(
+                "[{\"type\":\"TASK\",\"name\":\"a\",\"status\":\"NEW\",\"taskId\":1000}]",
+                "/batch?action=update"), handler);
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    public void rangeBadRequestTest() throws IOException, InterruptedException {
+        HttpResponse<String> response;
+
+        response = client.send(createGetRequest("/task/range?from=04.03.2023.15:00.UTC"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createGetRequest("/task/range?from=04.03.2023.15:00.UTC&to=04.03.2023.14:00.UTC"),
+                handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createGetRequest("/task/upcoming?after=04.03.2023.15:00.UTC"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createGetRequest("/task/upcoming?after=04.03.2023.15:00.UTC&limit=ten"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createGetRequest("/task/upcoming?after=yesterday&limit=10"), handler);
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void pageBadRequestTest() throws IOException, InterruptedException {
+        HttpResponse<String> response;
+
+        for (String path : List.of("/task/all", "/task/prioritized", "/history")) {
+            response = client.send(createGetRequest(path + "?after=1"), handler);
+            assertEquals(400, response.statusCode());
+
+            response = client.send(createGetRequest(path + "?limit=ten"), handler);
+            assertEquals(400, response.statusCode());
+
+            response = client.send(createGetRequest(path + "?limit=0"), handler);
+            assertEquals(400, response.statusCode());
+        }
+
+        response = client.send(createGetRequest("/task/prioritized?after=1000&limit=2"), handler);
+        assertEquals(400, response.statusCode());
+
+        response = client.send(createGetRequest("/history?after=1000&limit=2"), handler);
+        assertEquals(200, response.statusCode());
+        assertEquals("[]", response.body());
+        assertTrue(response.headers().firstValue("X-Next-Cursor").isEmpty());
+
+        response = client.send(createGetRequest("/task/all?after=1000&limit=2"), handler);
+        assertEquals(200, response.statusCode());
+        assertEquals("[]", response.body());
+    }
+}
@@ -0,0 +1,50 @@
+package kanban.service;
+
+import kanban.model.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+class JournalBenchmark {
+    private static final int OPERATIONS = 2_000;
+    private static final int BOARD_SIZE = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        benchmark("FileBackedTaskManager (full rewrite)", file -> new FileBackedTaskManager(1,
+                Managers.getDefaultHistory(), file));
+        for (Durability durability : Durability.values()) {
+            benchmark("Journal (" + durability + ")", file -> FileBackedTaskManager.loadWithJournal(file,
+                    durability));
+        }
+    }
+
+    private static void benchmark(String name, Function<Path, FileBackedTaskManager> factory) throws Exception {
+        Path directory = Files.createTempDirectory("journal-benchmark");
+        FileBackedTaskManager manager = factory.apply(directory.resolve("backup.csv"));
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            manager.createTask(new Task("name" + i, "description" + i));
+        }
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            Task task = new Task("updated" + i, "description" + i);
+            task.setTaskId(i % BOARD_SIZE + 1);
+            manager.updateTask(task);
+        }
+        manager.flush().get();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        manager.close();
+        System.out.printf("%s: %.1f updates/s%n", name, OPERATIONS * 1e9 / elapsedNanos);
+        deleteDirectory(directory);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,226 @@
+package kanban.service;
+
+import kanban.model.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    @TempDir
+    public Path directory;
+    public Path backupFile;
+
+    @BeforeEach
+    public void setManager() {
+        backupFile = directory.resolve("BackupFileTest.csv");
+        setManager(FileBackedTaskManager.loadWithJournal(backupFile, 256));
+    }
+
+    @AfterEach
+    public void closeManager() {
+        ((FileBackedTaskManager) manager).close();
+    }
+
+    public void fillManager() {
+        createThreeDifferentTasks();
+        Task task = new Task("g", "h");
+        task.setTimeProperties(startTime, 60);
+        manager.createTask(task);
+        SubTask subTask = new SubTask("k", "l", 2);
+        subTask.setTimeProperties(startTime.plusMinutes(120), 60);
+        manager.createTask(subTask);
+
+        Task updatedTask = new Task("m", "n");
+        updatedTask.setTaskId(4);
+        updatedTask.setStatus(TaskStatus.DONE);
+        updatedTask.setTimeProperties(startTime.plusMinutes(60), 30);
+        manager.updateTask(updatedTask);
+        SubTask updatedSubTask = new SubTask("o", "p", 2);
+        updatedSubTask.setTaskId(3);
+        updatedSubTask.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(updatedSubTask);
+        EpicTask epicTask = (EpicTask) manager.getTaskByTaskId(2);
+        EpicTask updatedEpicTask = new EpicTask("q", "r");
+        updatedEpicTask.setTaskId(2);
+        epicTask.getSubTasksIdsView().forEach(updatedEpicTask::addSubTaskId);
+        if (epicTask.areTimePropertiesSet()) {
+            updatedEpicTask.setTimeProperties(epicTask.getStartTime(), epicTask.getDuration());
+        }
+        manager.updateTask(updatedEpicTask);
+
+        manager.createTask(new Task("s", "t"));
+        manager.deleteTaskByTaskId(1);
+        manager.getTaskByTaskId(6);
+        manager.getTaskByTaskId(3);
+    }
+
+    public void assertSameState(TaskManager manager, InMemoryTaskManager newManager) {
+        assertEquals(manager.getHistory().stream().map(Task::getTaskId).collect(Collectors.toList()),
+                newManager.getHistory().stream().map(Task::getTaskId).collect(Collectors.toList()));
+        assertTaskListEquals(((InMemoryTaskManager) manager).getAllTasksNoHistory(),
+                newManager.getAllTasksNoHistory());
+    }
+
+    @Test
+    public void replayJournalTest() {
+        fillManager();
+        ((FileBackedTaskManager) manager).close();
+
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadWithJournal(backupFile);
+        assertSameState(manager, newManager);
+        assertEquals(7, newManager.createTask(new Task("u", "v")));
+        newManager.close();
+    }
+
+    @Test
+    public void separatorsInJournalTest() {
+        manager.createTask(new Task("Buy milk, eggs", "first line\nsecond, line"));
+        manager.createTask(new EpicTask("epic, with comma", "e"));
+        SubTask subTask = new SubTask("a,b", "c\r\nd", 2);
+        subTask.setTimeProperties(startTime, 30);
+        manager.createTask(subTask);
+        ((FileBackedTaskManager) manager).close();
+
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadWithJournal(backupFile);
+        assertSameState(manager, newManager);
+        assertEquals("Buy milk, eggs", newManager.getTaskByTaskId(1).getName());
+        assertEquals("first line\nsecond, line", newManager.getTaskByTaskId(1).getDescription());
+        assertEquals("c\r\nd", newManager.getTaskByTaskId(3).getDescription());
+        newManager.close();
+    }
+
+    @Test
+    public void batchInJournalTest() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        setManager(FileBackedTaskManager.loadWithJournal(backupFile));
+        Task task1 = new Task("a", "b");
+        task1.setTimeProperties(startTime, 60);
+        Task task2 = new Task("c", "d");
+        task2.setTimeProperties(startTime.plusMinutes(60), 60);
+        SubTask subTask = new SubTask("g", "h", 3);
+        subTask.setTimeProperties(startTime.plusMinutes(180), 60);
+        manager.createTasks(List.of(task1, task2, new EpicTask("e", "f"), subTask));
+
+        Task swappedTask1 = new Task("a", "b");
+        swappedTask1.setTaskId(1);
+        swappedTask1.setTimeProperties(startTime.plusMinutes(60), 60);
+        Task swappedTask2 = new Task("c", "d");
+        swappedTask2.setTaskId(2);
+        swappedTask2.setTimeProperties(startTime, 60);
+        SubTask movedSubTask = new SubTask("g", "h", 3);
+        movedSubTask.setTaskId(4);
+        movedSubTask.setStatus(TaskStatus.DONE);
+        movedSubTask.setTimeProperties(startTime.plusMinutes(240), 30);
+        manager.updateTasks(List.of(swappedTask1, swappedTask2, movedSubTask));
+        ((FileBackedTaskManager) manager).close();
+
+        List<Path> journalFiles = TaskJournal.getJournalFiles(backupFile, 0);
+        assertEquals(2, Files.readAllLines(journalFiles.get(journalFiles.size() - 1)).size());
+
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadWithJournal(backupFile);
+        assertSameState(manager, newManager);
+        assertTrue(startTime.plusMinutes(240).isEqual(newManager.getTaskByTaskId(3).getStartTime()));
+        assertEquals(TaskStatus.DONE, newManager.getTaskByTaskId(3).getStatus());
+        newManager.close();
+    }
+
+    @Test
+    public void snapshotAndCompactionTest() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        setManager(FileBackedTaskManager.loadWithJournal(backupFile, 1));
+        fillManager();
+        ((FileBackedTaskManager) manager).close();
+
+        List<Path> journalFiles = TaskJournal.getJournalFiles(backupFile, 0);
+        assertEquals(1, journalFiles.size());
+        assertEquals(0, Files.size(journalFiles.get(0)));
+        assertTrue(Files.exists(backupFile));
+
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadWithJournal(backupFile);
+        assertSameState(manager, newManager);
+        newManager.close();
+
+        FileBackedTaskManager snapshotManager = FileBackedTaskManager.loadFromFile(backupFile);
+        assertTaskListEquals(((InMemoryTaskManager) manager).getAllTasksNoHistory(),
+                snapshotManager.getAllTasksNoHistory());
+    }
+
+    @Test
+    public void tornJournalRecordTest() throws IOException {
+        createThreeDifferentTasks();
+        ((FileBackedTaskManager) manager).close();
+
+        List<Path> journalFiles = TaskJournal.getJournalFiles(backupFile, 0);
+        Files.writeString(journalFiles.get(journalFiles.size() - 1), "DEL,1",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadWithJournal(backupFile);
+        assertSameState(manager, newManager);
+        newManager.deleteTaskByTaskId(3);
+        newManager.close();
+
+        newManager = FileBackedTaskManager.loadWithJournal(backupFile);
+        assertEquals(2, newManager.getAllTasks().size());
+        newManager.close();
+    }
+
+    @Test
+    public void archiveTest() {
+        fillManager();
+        assertEquals(List.of(4), ((FileBackedTaskManager) manager).archiveTasks(startTime.plusDays(1)));
+        manager.createTask(new Task("u", "v"));
+        ((FileBackedTaskManager) manager).close();
+
+        FileBackedTaskManager newManager = FileBackedTaskManager.loadWithJournal(backupFile);
+        assertSameState(manager, newManager);
+        assertEquals("n", newManager.getTaskByTaskId(4).getDescription());
+        assertEquals(8, newManager.createTask(new Task("w", "x")));
+        newManager.close();
+    }
+
+    @Test
+    public void batchCommitTest() throws IOException {
+        ((FileBackedTaskManager) manager).close();
+        setManager(FileBackedTaskManager.loadWithJournal(backupFile, Durability.FSYNC_PER_COMMIT));
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Task("a", "b"));
+        }
+        manager.createTasks(tasks);
+
+        List<Path> journalFiles = TaskJournal.getJournalFiles(backupFile, 0);
+        assertEquals(1, Files.readAllLines(journalFiles.get(journalFiles.size() - 1)).size());
+    }
+
+    @Test
+    public void durabilityTest() throws Exception {
+        ((FileBackedTaskManager) manager).close();
+        for (Durability durability : Durability.values()) {
+            Path durabilityBackupFile = directory.resolve(durability + ".csv");
+            setManager(FileBackedTaskManager.loadWithJournal(durabilityBackupFile, 1 << 20, durability, 1000));
+            fillManager();
+            ((FileBackedTaskManager) manager).flush().get(10, TimeUnit.SECONDS);
+
+            FileBackedTaskManager newManager = FileBackedTaskManager.loadWithJournal(durabilityBackupFile);
+            assertSameState(manager, newManager);
+            newManager.close();
+            ((FileBackedTaskManager) manager).close();
+            ((FileBackedTaskManager) manager).flush().get(10, TimeUnit.SECONDS);
+        }
+        setManager(FileBackedTaskManager.loadWithJournal(backupFile));
+    }
+}
@@ -0,0 +1,76 @@
+package kanban.service;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+class KVServerBenchmark {
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int REQUESTS_PER_CLIENT = 1_000;
+    private static final int[] CLIENTS = {1, 2, 4, 8, 16};
+    private static final String VALUE = "x".repeat(4_096);
+
+    public static void main(String[] args) throws Exception {
+        // Measures the servers with TCP_NODELAY, as Main runs them, unless the flag is given on the command line
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        benchmark("single thread", () -> KVServer.newWorkerPool(1));
+        benchmark("worker pool (" + KVServer.DEFAULT_WORKER_THREADS + ")",
+                () -> KVServer.newWorkerPool(KVServer.DEFAULT_WORKER_THREADS));
+        benchmark("virtual threads or fallback", KVServer::newVirtualThreadExecutor);
+    }
+
+    private static void benchmark(String name, Supplier<ExecutorService> executors) throws Exception {
+        for (int clients : CLIENTS) {
+            ExecutorService executor = executors.get();
+            KVServer kvServer = new KVServer(executor);
+            kvServer.start();
+            double requestsPerSecond = 0;
+            for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+                requestsPerSecond = run(clients);
+            }
+            kvServer.stop();
+            executor.shutdown();
+            System.out.printf("%s, %d clients: %.0f requests/s%n", name, clients, requestsPerSecond);
+        }
+    }
+
+    private static double run(int clients) throws Exception {
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        List<KVTaskClient> kvClients = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            kvClients.add(new KVTaskClient(new URL("http://localhost:" + KVServer.PORT)));
+        }
+        List<Future<?>> results = new ArrayList<>();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            KVTaskClient kvClient = kvClients.get(i);
+            String keyPrefix = "board." + i + ".";
+            results.add(clientThreads.submit(() -> {
+                for (int request = 0; request < REQUESTS_PER_CLIENT; request++) {
+                    String key = keyPrefix + request % 16;
+                    if (request % 4 == 0) {
+                        kvClient.putAll(Map.of(key, VALUE, keyPrefix + "history", VALUE));
+                    } else if (request % 2 == 0) {
+                        kvClient.put(key, VALUE);
+                    } else {
+                        kvClient.load(key);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        clientThreads.shutdown();
+        return (double) clients * REQUESTS_PER_CLIENT * 1e9 / elapsedNanos;
+    }
+}
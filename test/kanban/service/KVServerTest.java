@@ -0,0 +1,306 @@
+package kanban.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KVServerTest {
+    public KVServer kvServer;
+    public KVTaskClient client;
+
+    @BeforeEach
+    public void startKVServer() throws IOException, InterruptedException {
+        kvServer = new KVServer();
+        kvServer.start();
+        client = new KVTaskClient(new URL("http://localhost:8078"));
+    }
+
+    @AfterEach
+    public void stopKVServer() {
+        kvServer.stop();
+    }
+
+    @Test
+    public void scanTest() throws IOException, InterruptedException {
+        for (String key : List.of("b.2", "a.1", "b.1", "b.10", "c.1")) {
+            client.put(key, "value " + key);
+        }
+        Map<String, String> values = client.scan("b.", "", 10);
+        assertEquals(List.of("b.1", "b.10", "b.2"), List.copyOf(values.keySet()));
+        assertEquals("value b.10", values.get("b.10"));
+        assertEquals(List.of("b.1", "b.10"), List.copyOf(client.scan("b.", "", 2).keySet()));
+        assertEquals(List.of("b.2"), List.copyOf(client.scan("b.", "b.10", 2).keySet()));
+        assertEquals(List.of("a.1", "b.1"), List.copyOf(client.scan("", "", 2).keySet()));
+        assertTrue(client.scan("d.", "", 10).isEmpty());
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        for (String query : List.of("limit=0", "limit=a")) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8078/scan?API_TOKEN=DEBUG&" + query))
+                    .GET()
+                    .build();
+            assertEquals(400, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+    }
+
+    @Test
+    public void batchTest() throws IOException, InterruptedException {
+        client.put("a", "1");
+        client.putAll(Map.of("b", "2", "c", "3", "a", "4"));
+        Map<String, String> values = client.loadAll(List.of("c", "a", "d"));
+        assertEquals(List.of("c", "a"), List.copyOf(values.keySet()));
+        assertEquals("4", values.get("a"));
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        for (String body : List.of("{\"e\": \"5\", \"f\": \"\"}", "{}", "[1,", "{\"e\": null}")) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8078/saveBatch?API_TOKEN=DEBUG"))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            assertEquals(400, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        assertTrue(client.loadAll(List.of("e")).isEmpty());
+
+        client.deleteAll(List.of("a", "b", "d"));
+        assertEquals(List.of("c"), List.copyOf(client.loadAll(List.of("a", "b", "c")).keySet()));
+        for (String body : List.of("[]", "[null]", "{\"a\": \"1\"}")) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8078/deleteBatch?API_TOKEN=DEBUG"))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            assertEquals(400, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+    }
+
+    @Test
+    public void concurrentBatchTest() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int writer = 0; writer < 2; writer++) {
+                String value = "writer " + writer;
+                results.add(clients.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        client.putAll(Map.of("x", value + " " + i, "y", value + " " + i));
+                    }
+                    return null;
+                }));
+            }
+            for (int reader = 0; reader < 2; reader++) {
+                results.add(clients.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        Map<String, String> values = client.loadAll(List.of("x", "y"));
+                        assertEquals(values.get("x"), values.get("y"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void versionTest() throws IOException, InterruptedException {
+        assertTrue(client.putIfVersion("a", "1", 0));
+        long version = client.getVersion("a");
+        assertTrue(version > 0);
+        assertFalse(client.putIfVersion("a", "2", 0));
+
+        assertNull(client.loadIfChanged("a", version));
+        // A POST right after a bodyless reply reuses the kept-alive connection
+        client.put("c", "1");
+        KVTaskClient otherClient = new KVTaskClient(new URL("http://localhost:8078"));
+        assertEquals("1", otherClient.load("a"));
+        assertEquals(version, otherClient.getVersion("a"));
+        assertTrue(otherClient.putIfVersion("a", "2", version));
+        assertTrue(otherClient.getVersion("a") > version);
+
+        assertFalse(client.putIfVersion("a", "3", version));
+        assertEquals("2", client.loadIfChanged("a", version));
+        assertTrue(client.putIfVersion("a", "3", client.getVersion("a")));
+        assertEquals("3", otherClient.load("a"));
+        assertEquals("", client.loadIfChanged("b", 1));
+        assertFalse(client.putIfVersion("b", "1", 1));
+    }
+
+    @Test
+    public void streamingTest() throws IOException, InterruptedException {
+        byte[] value = "{\"name\":\"задача\"}".repeat(100_000).getBytes(StandardCharsets.UTF_8);
+        client.put("large", new ByteArrayInputStream(value), value.length);
+        ByteArrayOutputStream loaded = new ByteArrayOutputStream();
+        assertTrue(client.load("large", loaded));
+        assertArrayEquals(value, loaded.toByteArray());
+        assertEquals(new String(value, StandardCharsets.UTF_8), client.load("large"));
+        assertEquals(new String(value, StandardCharsets.UTF_8), client.loadAll(List.of("large")).get("large"));
+        assertFalse(client.load("missing", new ByteArrayOutputStream()));
+
+        client.put("small", "value");
+        assertEquals(Map.of("large", new String(value, StandardCharsets.UTF_8), "small", "value"),
+                client.scan("", "", 10));
+    }
+
+    @Test
+    public void maxValueSizeTest() throws IOException, InterruptedException {
+        kvServer.setMaxValueBytes(1_000);
+        HttpClient httpClient = HttpClient.newHttpClient();
+        String value = "x".repeat(1_000);
+        String tooLargeValue = value + "x";
+        List<HttpRequest.BodyPublisher> tooLargeBodies = List.of(
+                HttpRequest.BodyPublishers.ofString(tooLargeValue),
+                HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(tooLargeValue.getBytes())));
+        for (HttpRequest.BodyPublisher body : tooLargeBodies) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8078/save/a?API_TOKEN=DEBUG"))
+                    .POST(body)
+                    .build();
+            assertEquals(413, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8078/save/a?API_TOKEN=DEBUG"))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(value.getBytes())))
+                .build();
+        assertEquals(200, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(value, client.load("a"));
+        assertThrows(IOException.class, () -> client.putAll(Map.of("b", tooLargeValue)));
+        assertThrows(IOException.class, () -> client.put("b", tooLargeValue));
+
+        String specialValue = "\"quoted\" \\ back\nslash\t\u0001\u2028 задача";
+        client.putAll(Map.of("c\"", specialValue));
+        assertEquals(Map.of("c\"", specialValue), client.loadAll(List.of("c\"")));
+        assertEquals(specialValue, client.load("c%22"));
+    }
+
+    @Test
+    public void durableStorageTest() throws IOException, InterruptedException {
+        kvServer.stop();
+        Path directory = Files.createTempDirectory("kv-server");
+        kvServer = new KVServer(new LogKVStorage(directory));
+        kvServer.start();
+        client = new KVTaskClient(new URL("http://localhost:8078"));
+        client.put("a", "1");
+        client.putAll(Map.of("b", "2", "c", "3"));
+        long version = client.getVersion("a");
+        kvServer.stop();
+
+        kvServer = new KVServer(new LogKVStorage(directory));
+        kvServer.start();
+        client = new KVTaskClient(new URL("http://localhost:8078"));
+        assertEquals("1", client.load("a"));
+        assertEquals(Map.of("b", "2", "c", "3"), client.loadAll(List.of("b", "c")));
+        assertNull(client.loadIfChanged("a", version));
+        assertTrue(client.putIfVersion("a", "4", version));
+        assertTrue(client.getVersion("a") > version);
+        kvServer.stop();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        kvServer = new KVServer();
+        kvServer.start();
+    }
+
+    @Test
+    public void storageErrorTest() throws IOException, InterruptedException {
+        kvServer.stop();
+        Path directory = Files.createTempDirectory("kv-server");
+        LogKVStorage storage = new LogKVStorage(directory);
+        kvServer = new KVServer(storage);
+        kvServer.start();
+        client = new KVTaskClient(new URL("http://localhost:8078"));
+        client.put("a", "1");
+        storage.close();
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8078/load/a?API_TOKEN=DEBUG"))
+                .GET()
+                .build();
+        assertEquals(500, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertThrows(IOException.class, () -> client.put("b", "2"));
+        assertThrows(IOException.class, () -> client.putAll(Map.of("c", "3")));
+        assertThrows(IOException.class, () -> client.loadAll(List.of("a")));
+        assertThrows(IOException.class, () -> client.scan("", "", 10));
+        kvServer.stop();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        kvServer = new KVServer();
+        kvServer.start();
+    }
+
+    @Test
+    public void statsTest() throws IOException, InterruptedException {
+        kvServer.stop();
+        kvServer = new KVServer(new MemoryKVStorage(1_300));
+        kvServer.start();
+        client = new KVTaskClient(new URL("http://localhost:8078"));
+        String value = "x".repeat(300);
+        client.put("a", value);
+        client.put("b", value, 60);
+        assertEquals(value, client.load("a"));
+        client.put("c", value);
+        client.put("d", value);
+        assertEquals("", client.load("b"));
+        assertEquals(Map.of("a", value), client.loadAll(List.of("a", "e")));
+
+        Map<String, Number> stats = kvServer.getStats();
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+        assertEquals(0.5, stats.get("hitRate"));
+        assertEquals(1L, stats.get("evictions"));
+
+        HttpClient httpClient = HttpClient.newHttpClient();
+        for (String ttl : List.of("0", "-1", "a")) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8078/save/f?API_TOKEN=DEBUG&ttl=" + ttl))
+                    .POST(HttpRequest.BodyPublishers.ofString(value))
+                    .build();
+            assertEquals(400, httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        HttpRequest tooLargeRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8078/save/f?API_TOKEN=DEBUG"))
+                .POST(HttpRequest.BodyPublishers.ofString("x".repeat(2_000)))
+                .build();
+        assertEquals(413, httpClient.send(tooLargeRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(value, client.load("a"));
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8078/stats?API_TOKEN=DEBUG"))
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"evictions\":1"));
+    }
+}
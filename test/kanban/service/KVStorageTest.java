@@ -0,0 +1,88 @@
+package kanban.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+abstract class KVStorageTest<T extends KVStorage> {
+    public T storage;
+
+    public void setStorage(T storage) {
+        this.storage = storage;
+    }
+
+    @AfterEach
+    public void closeStorage() {
+        storage.close();
+    }
+
+    @Test
+    public void putAndGet() {
+        assertNull(storage.get("a"));
+        storage.put("a", new KVValue("1", 1));
+        storage.put("b", new KVValue("2", 2));
+        storage.put("a", new KVValue("3", 3));
+        assertEquals("3", storage.get("a").getValue());
+        assertEquals(3, storage.get("a").getVersion());
+        assertEquals("2", storage.get("b").getValue());
+        assertEquals(List.of("a", "b"), List.copyOf(storage.keySet()));
+        assertEquals(List.of("b"), List.copyOf(storage.keySet().tailSet("a", false)));
+        assertEquals(3, storage.getLastVersion());
+    }
+
+    @Test
+    public void putAll() {
+        storage.put("a", new KVValue("1", 1));
+        storage.putAll(Map.of("a", new KVValue("2", 2), "b", new KVValue("3", 3)));
+        assertEquals("2", storage.get("a").getValue());
+        assertEquals("3", storage.get("b").getValue());
+        assertEquals(3, storage.getLastVersion());
+    }
+
+    @Test
+    public void conditionalPut() {
+        assertTrue(storage.putIfAbsent("a", new KVValue("1", 1)));
+        assertFalse(storage.putIfAbsent("a", new KVValue("2", 2)));
+        assertEquals("1", storage.get("a").getValue());
+
+        assertFalse(storage.replace("a", 2, new KVValue("3", 3)));
+        assertTrue(storage.replace("a", 1, new KVValue("4", 4)));
+        assertEquals("4", storage.get("a").getValue());
+        assertFalse(storage.replace("b", 1, new KVValue("5", 5)));
+        assertNull(storage.get("b"));
+    }
+
+    @Test
+    public void remove() {
+        storage.put("a", new KVValue("1", 1));
+        storage.put("b", new KVValue("2", 2));
+        assertTrue(storage.remove("a", 3));
+        assertFalse(storage.remove("a", 4));
+        assertFalse(storage.remove("c", 5));
+        assertNull(storage.get("a"));
+        assertEquals("2", storage.get("b").getValue());
+
+        storage.put("a", new KVValue("6", 6));
+        assertEquals("6", storage.get("a").getValue());
+    }
+
+    @Test
+    public void expiration() {
+        long nowMillis = System.currentTimeMillis();
+        storage.put("a", new KVValue("1", 1, nowMillis - 1));
+        storage.put("b", new KVValue("2", 2, nowMillis + 60_000));
+        assertNull(storage.get("a"));
+        assertEquals("2", storage.get("b").getValue());
+        assertEquals(1, storage.getExpirationsCount());
+
+        storage.put("c", new KVValue("3", 3, nowMillis - 1));
+        assertFalse(storage.replace("c", 3, new KVValue("4", 4)));
+        assertTrue(storage.putIfAbsent("c", new KVValue("5", 5)));
+        assertEquals("5", storage.get("c").getValue());
+        assertEquals(2, storage.getExpirationsCount());
+    }
+}
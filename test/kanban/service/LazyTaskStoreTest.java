@@ -0,0 +1,72 @@
+package kanban.service;
+
+import kanban.exceptions.TaskManagerException;
+import kanban.model.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyTaskStoreTest extends TaskStoreTest<LazyTaskStore> {
+    @TempDir
+    public Path directory;
+
+    @BeforeEach
+    public void setStore() throws IOException {
+        setStore(new LazyTaskStore(writeSnapshot(List.of()), 2));
+    }
+
+    public BinarySnapshot writeSnapshot(List<Task> tasks) throws IOException {
+        Path file = directory.resolve("snapshot.bin");
+        BinarySnapshot.write(file, BinarySnapshot.encode(tasks, List.of(), 0, tasks.size() + 1), false);
+        return BinarySnapshot.open(file);
+    }
+
+    @Test
+    public void materializeFromSnapshot() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int taskId = 1; taskId <= 5; taskId++) {
+            Task task = new Task("name" + taskId, "description" + taskId);
+            task.setTaskId(taskId);
+            tasks.add(task);
+        }
+        BinarySnapshot snapshot = writeSnapshot(tasks);
+        LazyTaskStore store = new LazyTaskStore(snapshot, 2);
+        while (snapshot.hasNextTask()) {
+            int position = snapshot.position();
+            Task skeleton = snapshot.nextTaskSkeleton();
+            assertNull(skeleton.getDescription());
+            store.putSnapshotTask(skeleton.getTaskId(), position);
+        }
+        assertEquals(5, store.size());
+        assertEquals(0, store.getCachedTasksCount());
+
+        for (int taskId = 1; taskId <= 5; taskId++) {
+            assertEquals("description" + taskId, store.get(taskId).getDescription());
+            assertTrue(store.getCachedTasksCount() <= 2);
+        }
+        assertSame(store.get(5), store.get(5));
+
+        List<Task> allTasks = new ArrayList<>();
+        store.forEach(allTasks::add);
+        assertEquals(tasks, allTasks);
+        assertEquals(2, store.getCachedTasksCount());
+
+        Task updatedTask = new Task("a", "b");
+        updatedTask.setTaskId(1);
+        assertEquals("description1", store.put(updatedTask).getDescription());
+        assertSame(updatedTask, store.get(1));
+        assertEquals("description2", store.remove(2).getDescription());
+        assertFalse(store.contains(2));
+        assertEquals(4, store.size());
+
+        assertThrows(TaskManagerException.class, () -> new LazyTaskStore(snapshot, 0));
+    }
+}
@@ -0,0 +1,167 @@
+package kanban.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogKVStorageTest extends KVStorageTest<LogKVStorage> {
+    private static final long SEGMENT_BYTES = 256;
+    public Path directory;
+
+    @BeforeEach
+    public void setStorage() throws IOException {
+        directory = Files.createTempDirectory("log-kv-storage");
+        setStorage(open(Integer.MAX_VALUE));
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        storage.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    public LogKVStorage open(int mergeThreshold) {
+        return new LogKVStorage(directory, Durability.FSYNC_PER_COMMIT, SEGMENT_BYTES, mergeThreshold);
+    }
+
+    @Test
+    public void restartTest() {
+        for (int i = 0; i < 100; i++) {
+            storage.put("key" + i % 10, new KVValue("value" + i, i + 1));
+        }
+        assertTrue(storage.getSegmentsCount() > 1);
+        storage.close();
+
+        storage = open(Integer.MAX_VALUE);
+        assertEquals(100, storage.getLastVersion());
+        assertEquals(10, storage.keySet().size());
+        for (int i = 90; i < 100; i++) {
+            KVValue value = storage.get("key" + i % 10);
+            assertEquals("value" + i, value.getValue());
+            assertEquals(i + 1, value.getVersion());
+        }
+    }
+
+    @Test
+    public void mergeTest() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            storage.put("key" + i % 10, new KVValue("value" + i, i + 1));
+        }
+        int segmentsCount = storage.getSegmentsCount();
+        storage.merge();
+        assertTrue(storage.getSegmentsCount() < segmentsCount);
+        assertEquals(2, storage.getSegmentsCount());
+        for (int i = 90; i < 100; i++) {
+            assertEquals("value" + i, storage.get("key" + i % 10).getValue());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.toString().endsWith(".hint")).count());
+        }
+        storage.put("key0", new KVValue("newest", 101));
+        storage.close();
+
+        storage = open(Integer.MAX_VALUE);
+        assertEquals("newest", storage.get("key0").getValue());
+        assertEquals("value99", storage.get("key9").getValue());
+        assertEquals(101, storage.getLastVersion());
+    }
+
+    @Test
+    public void backgroundMergeTest() throws InterruptedException {
+        storage.close();
+        storage = open(2);
+        for (int i = 0; i < 1000; i++) {
+            storage.put("key" + i % 10, new KVValue("value" + i, i + 1));
+        }
+        for (int attempt = 0; attempt < 100 && storage.getSegmentsCount() > 4; attempt++) {
+            Thread.sleep(10);
+        }
+        assertTrue(storage.getSegmentsCount() <= 4);
+        for (int i = 990; i < 1000; i++) {
+            assertEquals("value" + i, storage.get("key" + i % 10).getValue());
+        }
+    }
+
+    @Test
+    public void tornRecordTest() throws IOException {
+        storage.put("a", new KVValue("1", 1));
+        storage.put("b", new KVValue("2", 2));
+        storage.close();
+        Path lastSegment;
+        try (Stream<Path> files = Files.list(directory)) {
+            lastSegment = files.filter(file -> file.toString().endsWith(".data") && fileSize(file) > 0)
+                    .max(Comparator.naturalOrder())
+                    .orElseThrow();
+        }
+        try (var channel = Files.newByteChannel(lastSegment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(lastSegment) - 1);
+        }
+
+        storage = open(Integer.MAX_VALUE);
+        assertEquals("1", storage.get("a").getValue());
+        assertNull(storage.get("b"));
+        assertEquals(List.of("a"), List.copyOf(storage.keySet()));
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Test
+    public void removeRestartTest() {
+        for (int i = 0; i < 20; i++) {
+            storage.put("key" + i % 2, new KVValue("value" + i, i + 1));
+        }
+        assertTrue(storage.remove("key0", 21));
+        storage.close();
+
+        storage = open(Integer.MAX_VALUE);
+        assertNull(storage.get("key0"));
+        assertEquals("value19", storage.get("key1").getValue());
+        assertEquals(21, storage.getLastVersion());
+        storage.merge();
+        storage.close();
+
+        storage = open(Integer.MAX_VALUE);
+        assertNull(storage.get("key0"));
+        assertEquals(List.of("key1"), List.copyOf(storage.keySet()));
+    }
+
+    @Test
+    public void expirationRestartTest() {
+        long nowMillis = System.currentTimeMillis();
+        storage.put("a", new KVValue("old", 1));
+        storage.put("a", new KVValue("expired", 2, nowMillis - 1));
+        storage.put("b", new KVValue("expired", 3, nowMillis - 1));
+        storage.close();
+
+        storage = open(Integer.MAX_VALUE);
+        assertNull(storage.get("a"));
+        assertEquals(3, storage.getLastVersion());
+        storage.merge();
+        assertTrue(storage.keySet().isEmpty());
+        assertEquals(2, storage.getExpirationsCount());
+        storage.close();
+
+        storage = open(Integer.MAX_VALUE);
+        assertTrue(storage.keySet().isEmpty());
+    }
+}
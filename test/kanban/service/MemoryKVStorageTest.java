@@ -0,0 +1,89 @@
+package kanban.service;
+
+import kanban.exceptions.ValueTooLargeException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryKVStorageTest extends KVStorageTest<MemoryKVStorage> {
+    @BeforeEach
+    public void setStorage() {
+        setStorage(new MemoryKVStorage());
+    }
+
+    @Test
+    public void evictionTest() {
+        storage = new MemoryKVStorage(1_000);
+        String value = "x".repeat(200);
+        for (String key : List.of("a", "b", "c")) {
+            storage.put(key, new KVValue(value, 1));
+        }
+        assertNotNull(storage.get("a"));
+        storage.put("d", new KVValue(value, 2));
+        assertNull(storage.get("b"));
+        assertEquals(List.of("a", "c", "d"), List.copyOf(storage.keySet()));
+        assertEquals(1, storage.getEvictionsCount());
+        assertTrue(storage.getUsedBytes() <= 1_000);
+
+        assertThrows(ValueTooLargeException.class, () -> storage.put("e", new KVValue("x".repeat(2_000), 3)));
+        assertEquals(List.of("a", "c", "d"), List.copyOf(storage.keySet()));
+        assertEquals(1, storage.getEvictionsCount());
+        storage.put("e", new KVValue(value, 4));
+        assertTrue(storage.getUsedBytes() <= 1_000);
+
+        storage = new MemoryKVStorage(1_000);
+        storage.put("ключ", new KVValue("x", 5));
+        assertEquals(128 + "ключ".getBytes(StandardCharsets.UTF_8).length + 1, storage.getUsedBytes());
+        assertThrows(IllegalArgumentException.class, () -> new MemoryKVStorage(0));
+    }
+
+    @Test
+    public void batchBudgetTest() {
+        storage = new MemoryKVStorage(1_000);
+        storage.put("a", new KVValue("x".repeat(200), 1));
+        assertThrows(ValueTooLargeException.class, () -> storage.putAll(Map.of("b", new KVValue("x".repeat(100), 2),
+                "c", new KVValue("x".repeat(2_000), 3))));
+        assertThrows(ValueTooLargeException.class, () -> storage.putAll(Map.of("b", new KVValue("x".repeat(400), 2),
+                "c", new KVValue("x".repeat(400), 3))));
+        assertEquals(List.of("a"), List.copyOf(storage.keySet()));
+        assertEquals(0, storage.getEvictionsCount());
+
+        storage.putAll(Map.of("b", new KVValue("x".repeat(300), 4), "c", new KVValue("x".repeat(300), 5)));
+        assertEquals(List.of("b", "c"), List.copyOf(storage.keySet()));
+        assertEquals(1, storage.getEvictionsCount());
+        assertTrue(storage.getUsedBytes() <= 1_000);
+    }
+
+    @Test
+    public void expireWithoutReadTest() throws InterruptedException {
+        long expiresAtMillis = System.currentTimeMillis() + 20;
+        for (int i = 0; i < 10; i++) {
+            storage.put("key" + i, new KVValue("value", i + 1, expiresAtMillis));
+        }
+        long usedBytes = storage.getUsedBytes();
+        Thread.sleep(50);
+        storage.put("other", new KVValue("value", 11));
+        assertEquals(List.of("other"), List.copyOf(storage.keySet()));
+        assertEquals(10, storage.getExpirationsCount());
+        assertTrue(storage.getUsedBytes() < usedBytes);
+    }
+
+    @Test
+    public void untimedPutOverExpiringValueTest() throws InterruptedException {
+        storage.put("a", new KVValue("1", 1, System.currentTimeMillis() + 20));
+        storage.put("a", new KVValue("2", 2));
+        Thread.sleep(50);
+        storage.put("b", new KVValue("3", 3, System.currentTimeMillis() + 60_000));
+        assertEquals("2", storage.get("a").getValue());
+        assertEquals(0, storage.getExpirationsCount());
+
+        storage.put("c", new KVValue("4", 4));
+        assertEquals(3 * (128 + 1 + 1), storage.getUsedBytes());
+    }
+}
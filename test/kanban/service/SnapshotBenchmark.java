@@ -0,0 +1,107 @@
+package kanban.service;
+
+import kanban.model.EpicTask;
+import kanban.model.SubTask;
+import kanban.model.Task;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class SnapshotBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int EPIC_TASKS = 10_000;
+    private static final int SUBTASKS_PER_EPIC_TASK = 9;
+    private static final int LAZY_CACHE_CAPACITY = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("snapshot-benchmark");
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            Path file = directory.resolve("backup." + format);
+            FileBackedTaskManager manager = new FileBackedTaskManager(1, Managers.getDefaultHistory(), file, format);
+            List<Task> epicTasks = new ArrayList<>();
+            for (int i = 0; i < EPIC_TASKS; i++) {
+                epicTasks.add(new EpicTask("epic " + i, "description " + i));
+            }
+            manager.createTasks(epicTasks);
+            ZonedDateTime startTime = InMemoryTaskManager.START_TIME;
+            List<Task> subTasks = new ArrayList<>();
+            for (int i = 0; i < EPIC_TASKS * SUBTASKS_PER_EPIC_TASK; i++) {
+                SubTask subTask = new SubTask("subtask " + i, "description " + i + " " + "x".repeat(200),
+                        i / SUBTASKS_PER_EPIC_TASK + 1);
+                subTask.setTimeProperties(startTime.plusMinutes(i * 60L), 45);
+                subTasks.add(subTask);
+            }
+            manager.createTasks(subTasks);
+            long fileSize = Files.size(file);
+            long decodeNanos = 0;
+            long loadNanos = 0;
+            long parallelLoadNanos = 0;
+            long verifiedLoadNanos = 0;
+            long lazyLoadNanos = 0;
+            for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+                long startNanos = System.nanoTime();
+                decode(file, format);
+                decodeNanos = System.nanoTime() - startNanos;
+                startNanos = System.nanoTime();
+                FileBackedTaskManager.loadFromFile(file);
+                loadNanos = System.nanoTime() - startNanos;
+                startNanos = System.nanoTime();
+                FileBackedTaskManager.loadFromFile(file, true, false);
+                parallelLoadNanos = System.nanoTime() - startNanos;
+                startNanos = System.nanoTime();
+                FileBackedTaskManager.loadFromFile(file, false, true);
+                verifiedLoadNanos = System.nanoTime() - startNanos;
+                startNanos = System.nanoTime();
+                FileBackedTaskManager.loadLazily(file, LAZY_CACHE_CAPACITY);
+                lazyLoadNanos = System.nanoTime() - startNanos;
+            }
+            manager = null;
+            long baseHeap = usedHeap();
+            FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file);
+            long loadHeap = usedHeap() - baseHeap;
+            int loadedTasks = loadedManager.getAllTasksNoHistory().size();
+            loadedManager = null;
+            baseHeap = usedHeap();
+            loadedManager = FileBackedTaskManager.loadLazily(file, LAZY_CACHE_CAPACITY);
+            long lazyLoadHeap = usedHeap() - baseHeap;
+            loadedTasks = Math.min(loadedTasks, loadedManager.getAllTasksNoHistory().size());
+            loadedManager = null;
+            System.out.printf("%s: %d tasks, %d bytes, decode %.1f ms, load %.1f ms (%d KB heap),"
+                    + " parallel load %.1f ms, verified load %.1f ms, lazy load %.1f ms (%d KB heap)%n", format,
+                    loadedTasks, fileSize, decodeNanos / 1e6, loadNanos / 1e6, loadHeap >> 10,
+                    parallelLoadNanos / 1e6, verifiedLoadNanos / 1e6, lazyLoadNanos / 1e6, lazyLoadHeap >> 10);
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static int decode(Path file, SnapshotFormat format) throws Exception {
+        int result = 0;
+        if (format == SnapshotFormat.BINARY) {
+            BinarySnapshot snapshot = BinarySnapshot.open(file);
+            while (snapshot.hasNextTask()) {
+                result += snapshot.nextTask().getTaskId();
+            }
+        } else {
+            for (String line : Files.readAllLines(file)) {
+                if (line.isEmpty()) {
+                    break;
+                }
+                result += FileBackedTaskManager.taskFromString(line).getTaskId();
+            }
+        }
+        return result;
+    }
+}
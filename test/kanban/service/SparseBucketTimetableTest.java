@@ -0,0 +1,10 @@
+package kanban.service;
+
+import org.junit.jupiter.api.BeforeEach;
+
+class SparseBucketTimetableTest extends TimetableTest<BucketTimetable> {
+    @BeforeEach
+    public void setTimetable() {
+        setTimetable(new BucketTimetable(true));
+    }
+}
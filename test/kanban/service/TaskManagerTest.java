@@ -7,7 +7,9 @@ import org.junit.jupiter.api.Test;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,6 +30,10 @@ abstract class TaskManagerTest<T extends TaskManager> {
     }
 
     public void createThreeDifferentTasks() {
+        createThreeDifferentTasks(manager);
+    }
+
+    public void createThreeDifferentTasks(TaskManager manager) {
         manager.createTask(new Task("a", "b"));
         manager.createTask(new EpicTask("c", "d"));
         manager.createTask(new SubTask("e", "f", 2));
@@ -390,4 +396,299 @@ abstract class TaskManagerTest<T extends TaskManager> {
         manager.deleteAllTasks();
         assertTrue(manager.getPrioritizedTasks().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getFreeTimeIntervals() {
+        ZonedDateTime utcStartTime = startTime.withZoneSameInstant(ZoneId.of("UTC"));
+        assertEquals(new TimeInterval(utcStartTime, utcStartTime.plusMinutes(30)),
+                manager.getEarliestFreeTimeInterval(startTime, 30));
+
+        Task task1 = new Task("a", "b");
+        task1.setTimeProperties(startTime, 60);
+        manager.createTask(task1);
+        Task task2 = new Task("c", "d");
+        task2.setTimeProperties(startTime.plusMinutes(80), 20);
+        manager.createTask(task2);
+        manager.createTask(new EpicTask("e", "f"));
+        SubTask subTask = new SubTask("g", "h", 3);
+        subTask.setTimeProperties(startTime.plusMinutes(130), 60);
+        manager.createTask(subTask);
+
+        assertEquals(new TimeInterval(utcStartTime.plusMinutes(60), utcStartTime.plusMinutes(80)),
+                manager.getEarliestFreeTimeInterval(startTime, 20));
+        assertEquals(new TimeInterval(utcStartTime.plusMinutes(100), utcStartTime.plusMinutes(130)),
+                manager.getEarliestFreeTimeInterval(startTime.plusMinutes(30), 30));
+        assertEquals(new TimeInterval(utcStartTime.plusMinutes(190), utcStartTime.plusMinutes(221)),
+                manager.getEarliestFreeTimeInterval(startTime.plusMinutes(10), 31));
+        assertEquals(new TimeInterval(utcStartTime.minusMinutes(60), utcStartTime.minusMinutes(30)),
+                manager.getEarliestFreeTimeInterval(startTime.minusMinutes(60), 30));
+
+        List<TimeInterval> freeTimeIntervals = manager.getFreeTimeIntervals(startTime.plusMinutes(10), 15, 3);
+        assertArrayEquals(new TimeInterval[] {
+                new TimeInterval(utcStartTime.plusMinutes(60), utcStartTime.plusMinutes(75)),
+                new TimeInterval(utcStartTime.plusMinutes(100), utcStartTime.plusMinutes(115)),
+                new TimeInterval(utcStartTime.plusMinutes(190), utcStartTime.plusMinutes(205))
+        }, freeTimeIntervals.toArray());
+        assertEquals(2, manager.getFreeTimeIntervals(startTime.plusMinutes(100), 15, 5).size());
+
+        Task task3 = new Task("i", "j");
+        task3.setTimeProperties(manager.getEarliestFreeTimeInterval(startTime, 25).getFrom(), 25);
+        manager.createTask(task3);
+        assertTrue(manager.getHistory().isEmpty());
+
+        TaskManagerException exception = assertThrows(TaskManagerException.class,
+                () -> manager.getEarliestFreeTimeInterval(null, 10));
+        assertEquals("Can not search for free time from null", exception.getMessage());
+        exception = assertThrows(TaskManagerException.class,
+                () -> manager.getEarliestFreeTimeInterval(startTime, 0));
+        assertEquals("Free time interval must have positive duration", exception.getMessage());
+        exception = assertThrows(TaskManagerException.class,
+                () -> manager.getFreeTimeIntervals(startTime, 10, 0));
+        assertEquals("Number of free time intervals must be positive", exception.getMessage());
+    }
+
+    @Test
+    public void createTasks() {
+        TaskManagerException exception = assertThrows(TaskManagerException.class, () -> manager.createTasks(null));
+        assertEquals("Can not create null list of Tasks", exception.getMessage());
+
+        Task task1 = new Task("a", "b");
+        task1.setTimeProperties(startTime, 30);
+        EpicTask epicTask = new EpicTask("c", "d");
+        SubTask subTask1 = new SubTask("e", "f", 2);
+        subTask1.setTimeProperties(startTime.plusMinutes(30), 30);
+        SubTask subTask2 = new SubTask("g", "h", 2);
+        subTask2.setTimeProperties(startTime.minusMinutes(30), 30);
+        assertArrayEquals(new Integer[] {1, 2, 3, 4},
+                manager.createTasks(List.of(task1, epicTask, subTask1, subTask2)).toArray());
+        assertArrayEquals(new Task[] {task1, epicTask, subTask1, subTask2}, manager.getAllTasks().toArray());
+        assertEquals(90, manager.getTaskByTaskId(2).getDuration());
+        assertArrayEquals(new Integer[] {3, 4}, ((EpicTask) manager.getTaskByTaskId(2)).getSubTasksIds().toArray());
+
+        Task task2 = new Task("i", "j");
+        task2.setTimeProperties(startTime.plusMinutes(120), 30);
+        Task task3 = new Task("k", "l");
+        task3.setTimeProperties(startTime.plusMinutes(140), 30);
+        TaskTimeException taskTimeException = assertThrows(TaskTimeException.class,
+                () -> manager.createTasks(List.of(task2, task3)));
+        assertEquals("Tasks in batch intersect with each other", taskTimeException.getMessage());
+
+        Task task4 = new Task("m", "n");
+        task4.setTimeProperties(startTime.plusMinutes(45), 30);
+        taskTimeException = assertThrows(TaskTimeException.class,
+                () -> manager.createTasks(List.of(task2, task4)));
+        assertEquals("Task intersects with other existing tasks", taskTimeException.getMessage());
+
+        NoSuchTaskException noSuchTaskException = assertThrows(NoSuchTaskException.class,
+                () -> manager.createTasks(List.of(task2, new SubTask("o", "p", 6))));
+        assertEquals("There is no Task with such masterTaskId", noSuchTaskException.getMessage());
+        assertEquals(4, manager.getAllTasks().size());
+
+        assertArrayEquals(new Integer[] {5, 6, 7},
+                manager.createTasks(List.of(task2, new EpicTask("q", "r"), new SubTask("s", "t", 6))).toArray());
+        assertEquals(7, manager.getAllTasks().size());
+        assertTrue(manager.createTasks(List.of()).isEmpty());
+    }
+
+    @Test
+    public void updateTasks() {
+        TaskManagerException exception = assertThrows(TaskManagerException.class, () -> manager.updateTasks(null));
+        assertEquals("Can not update null list of Tasks", exception.getMessage());
+
+        Task task1 = new Task("a", "b");
+        task1.setTimeProperties(startTime, 30);
+        Task task2 = new Task("c", "d");
+        task2.setTimeProperties(startTime.plusMinutes(30), 30);
+        manager.createTasks(List.of(task1, task2, new EpicTask("e", "f"), new SubTask("g", "h", 3)));
+
+        Task updatedTask1 = new Task("i", "j");
+        updatedTask1.setTaskId(1);
+        updatedTask1.setTimeProperties(startTime.plusMinutes(30), 30);
+        Task updatedTask2 = new Task("k", "l");
+        updatedTask2.setTaskId(2);
+        updatedTask2.setTimeProperties(startTime, 30);
+        SubTask updatedSubTask = new SubTask("m", "n", 3);
+        updatedSubTask.setTaskId(4);
+        updatedSubTask.setStatus(TaskStatus.DONE);
+        updatedSubTask.setTimeProperties(startTime.plusMinutes(60), 30);
+
+        exception = assertThrows(TaskManagerException.class,
+                () -> manager.updateTasks(List.of(updatedTask1, updatedTask1)));
+        assertEquals("Can not update the same Task twice in one batch", exception.getMessage());
+
+        TaskTimeException taskTimeException = assertThrows(TaskTimeException.class,
+                () -> manager.updateTasks(List.of(updatedTask1)));
+        assertEquals("Updated Task intersects with other existing tasks", taskTimeException.getMessage());
+
+        Task badTask = new Task("o", "p");
+        badTask.setTaskId(5);
+        NoSuchTaskException noSuchTaskException = assertThrows(NoSuchTaskException.class,
+                () -> manager.updateTasks(List.of(updatedTask1, updatedTask2, badTask)));
+        assertEquals("There is no such task", noSuchTaskException.getMessage());
+        assertEquals("a", manager.getTaskByTaskId(1).getName());
+
+        assertArrayEquals(new Integer[] {1, 2, 4},
+                manager.updateTasks(List.of(updatedTask1, updatedTask2, updatedSubTask)).toArray());
+        assertArrayEquals(new Task[] {updatedTask2, updatedTask1, updatedSubTask, manager.getTaskByTaskId(3)},
+                manager.getPrioritizedTasks().toArray());
+        assertEquals("i", manager.getTaskByTaskId(1).getName());
+        assertEquals(TaskStatus.DONE, manager.getTaskByTaskId(3).getStatus());
+        assertEquals(30, manager.getTaskByTaskId(3).getDuration());
+
+        Task task3 = new Task("q", "r");
+        task3.setTimeProperties(startTime.plusMinutes(10), 10);
+        assertThrows(TaskTimeException.class, () -> manager.createTask(task3));
+    }
+
+    @Test
+    public void getTasksBetween() {
+        Task task1 = new Task("a", "b");
+        task1.setTimeProperties(startTime, 60);
+        Task task2 = new Task("c", "d");
+        task2.setTimeProperties(startTime.plusMinutes(120), 60);
+        Task task3 = new Task("e", "f");
+        task3.setTimeProperties(startTime.plusDays(7), 60);
+        manager.createTasks(List.of(task1, task2, task3, new Task("g", "h"), new EpicTask("i", "j")));
+        SubTask subTask = new SubTask("k", "l", 5);
+        subTask.setTimeProperties(startTime.plusMinutes(60), 30);
+        manager.createTask(subTask);
+
+        assertArrayEquals(new Task[] {task1, subTask, task2},
+                manager.getTasksBetween(startTime, startTime.plusDays(1)).toArray());
+        assertArrayEquals(new Task[] {task1, subTask},
+                manager.getTasksBetween(startTime.plusMinutes(30), startTime.plusMinutes(120)).toArray());
+        assertArrayEquals(new Task[] {task3},
+                manager.getTasksBetween(startTime.plusDays(1), startTime.plusDays(8)).toArray());
+        assertTrue(manager.getTasksBetween(startTime.minusDays(1), startTime).isEmpty());
+        assertArrayEquals(new Task[] {task2, task1, subTask, task3}, manager.getHistory().toArray());
+
+        TaskManagerException exception = assertThrows(TaskManagerException.class,
+                () -> manager.getTasksBetween(null, startTime));
+        assertEquals("Can not search for Tasks with null time borders", exception.getMessage());
+        exception = assertThrows(TaskManagerException.class,
+                () -> manager.getTasksBetween(startTime, startTime));
+        assertEquals("from must be before to", exception.getMessage());
+    }
+
+    @Test
+    public void getUpcomingTasks() {
+        Task task1 = new Task("a", "b");
+        task1.setTimeProperties(startTime, 60);
+        Task task2 = new Task("c", "d");
+        task2.setTimeProperties(startTime.plusMinutes(120), 60);
+        Task task3 = new Task("e", "f");
+        task3.setTimeProperties(startTime.plusDays(7), 60);
+        manager.createTasks(List.of(task3, task2, task1, new Task("g", "h")));
+
+        assertArrayEquals(new Task[] {task1, task2},
+                manager.getUpcomingTasks(startTime.minusDays(1), 2).toArray());
+        assertArrayEquals(new Task[] {task2, task3},
+                manager.getUpcomingTasks(startTime.plusMinutes(1), 5).toArray());
+        assertArrayEquals(new Task[] {task1},
+                manager.getUpcomingTasks(startTime, 1).toArray());
+        assertTrue(manager.getUpcomingTasks(startTime.plusDays(8), 5).isEmpty());
+
+        TaskManagerException exception = assertThrows(TaskManagerException.class,
+                () -> manager.getUpcomingTasks(null, 1));
+        assertEquals("Can not search for Tasks after null", exception.getMessage());
+        exception = assertThrows(TaskManagerException.class,
+                () -> manager.getUpcomingTasks(startTime, 0));
+        assertEquals("Number of Tasks must be positive", exception.getMessage());
+    }
+
+    @Test
+    public void getAllTasksPage() {
+        Task task = new Task("a", "b");
+        EpicTask epicTask = new EpicTask("c", "d");
+        manager.createTasks(List.of(task, epicTask, new SubTask("e", "f", 2), new Task("g", "h")));
+
+        List<Task> pagedTasks = new ArrayList<>();
+        List<Task> page = manager.getAllTasks(0, 3);
+        assertEquals(3, page.size());
+        pagedTasks.addAll(page);
+        page = manager.getAllTasks(page.get(page.size() - 1).getTaskId(), 3);
+        assertEquals(1, page.size());
+        pagedTasks.addAll(page);
+        assertTrue(manager.getAllTasks(4, 3).isEmpty());
+        assertEquals(List.of(1, 2, 3, 4), pagedTasks.stream().map(Task::getTaskId).collect(Collectors.toList()));
+
+        manager.deleteTaskByTaskId(1);
+        assertEquals(List.of(2, 3), manager.getAllTasks(1, 2).stream()
+                .map(Task::getTaskId).collect(Collectors.toList()));
+
+        TaskManagerException exception = assertThrows(TaskManagerException.class,
+                () -> manager.getAllTasks(0, 0));
+        assertEquals("Number of Tasks must be positive", exception.getMessage());
+    }
+
+    @Test
+    public void getPrioritizedTasksPage() {
+        Task task1 = new Task("a", "b");
+        task1.setTimeProperties(startTime.plusMinutes(120), 60);
+        Task task2 = new Task("c", "d");
+        task2.setTimeProperties(startTime, 60);
+        manager.createTasks(List.of(task1, new EpicTask("e", "f"), new Task("g", "h"), task2,
+                new Task("i", "j"), new EpicTask("k", "l")));
+        List<Task> prioritizedTasks = manager.getPrioritizedTasks();
+
+        for (int limit = 1; limit <= 7; limit++) {
+            List<Task> pagedTasks = new ArrayList<>();
+            TaskPage page = manager.getPrioritizedTasks(null, limit);
+            while (!page.getTasks().isEmpty()) {
+                assertTrue(page.getTasks().size() <= limit);
+                pagedTasks.addAll(page.getTasks());
+                page = manager.getPrioritizedTasks(page.getNextCursor(), limit);
+            }
+            assertNull(page.getNextCursor());
+            assertEquals(prioritizedTasks, pagedTasks);
+        }
+        assertEquals(List.of(4, 1, 3, 5, 2, 6), prioritizedTasks.stream()
+                .map(Task::getTaskId).collect(Collectors.toList()));
+
+        String cursor = manager.getPrioritizedTasks(null, 2).getNextCursor();
+        Task rescheduledTask = new Task("a", "b");
+        rescheduledTask.setTaskId(1);
+        rescheduledTask.setTimeProperties(startTime.minusMinutes(120), 60);
+        manager.updateTask(rescheduledTask);
+        assertEquals(List.of(3, 5), manager.getPrioritizedTasks(cursor, 2).getTasks().stream()
+                .map(Task::getTaskId).collect(Collectors.toList()));
+
+        cursor = manager.getPrioritizedTasks(null, 3).getNextCursor();
+        manager.deleteTaskByTaskId(3);
+        assertEquals(List.of(5, 2), manager.getPrioritizedTasks(cursor, 2).getTasks().stream()
+                .map(Task::getTaskId).collect(Collectors.toList()));
+
+        for (String badCursor : List.of("10", "t:1", "u:x", "e:1:2")) {
+            TaskManagerException exception = assertThrows(TaskManagerException.class,
+                    () -> manager.getPrioritizedTasks(badCursor, 2));
+            assertEquals("Could not read page cursor", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void getHistoryPage() {
+        manager.createTasks(List.of(new Task("a", "b"), new Task("c", "d"), new Task("e", "f")));
+        manager.getTaskByTaskId(3);
+        manager.getTaskByTaskId(1);
+        manager.getTaskByTaskId(2);
+
+        TaskPage page = manager.getHistory(null, 2);
+        assertEquals(List.of(3, 1), page.getTasks().stream()
+                .map(Task::getTaskId).collect(Collectors.toList()));
+        assertEquals(List.of(2), manager.getHistory(page.getNextCursor(), 2).getTasks().stream()
+                .map(Task::getTaskId).collect(Collectors.toList()));
+
+        manager.deleteTaskByTaskId(1);
+        assertEquals(List.of(2), manager.getHistory(page.getNextCursor(), 2).getTasks().stream()
+                .map(Task::getTaskId).collect(Collectors.toList()));
+        manager.getTaskByTaskId(3);
+        assertEquals(List.of(2, 3), manager.getHistory(page.getNextCursor(), 2).getTasks().stream()
+                .map(Task::getTaskId).collect(Collectors.toList()));
+
+        TaskManagerException exception = assertThrows(TaskManagerException.class,
+                () -> manager.getHistory("first", 2));
+        assertEquals("Could not read page cursor", exception.getMessage());
+        exception = assertThrows(TaskManagerException.class, () -> manager.getHistory(null, -1));
+        assertEquals("Number of Tasks must be positive", exception.getMessage());
+    }
+}
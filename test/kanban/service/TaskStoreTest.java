@@ -0,0 +1,114 @@
+package kanban.service;
+
+import kanban.model.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+abstract class TaskStoreTest<T extends TaskStore> {
+    public TaskStore store;
+
+    public void setStore(T store) {
+        this.store = store;
+    }
+
+    public Task createTask(int taskId) {
+        Task task = new Task("a", "b");
+        task.setTaskId(taskId);
+        return task;
+    }
+
+    @Test
+    public void putAndGet() {
+        assertNull(store.get(1));
+        assertFalse(store.contains(1));
+
+        Task task1 = createTask(1);
+        Task task100 = createTask(100);
+        assertNull(store.put(task1));
+        assertNull(store.put(task100));
+        assertEquals(2, store.size());
+        assertSame(task1, store.get(1));
+        assertSame(task100, store.get(100));
+        assertTrue(store.contains(100));
+        assertFalse(store.contains(50));
+        assertNull(store.get(-1));
+        assertNull(store.get(1000));
+
+        Task updatedTask1 = createTask(1);
+        assertSame(task1, store.put(updatedTask1));
+        assertSame(updatedTask1, store.get(1));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void remove() {
+        store.put(createTask(1));
+        store.put(createTask(2));
+        store.put(createTask(3));
+
+        assertNotNull(store.remove(3));
+        assertNull(store.remove(3));
+        assertNull(store.remove(10));
+        assertEquals(2, store.size());
+        assertFalse(store.contains(3));
+
+        store.put(createTask(5));
+        assertTrue(store.contains(5));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    public void forEach() {
+        int[] taskIds = {7, 3, 12, 1, 5};
+        for (int taskId : taskIds) {
+            store.put(createTask(taskId));
+        }
+        store.remove(12);
+        store.remove(3);
+
+        List<Integer> iteratedTaskIds = new ArrayList<>();
+        store.forEach(task -> iteratedTaskIds.add(task.getTaskId()));
+        assertArrayEquals(new Integer[] {1, 5, 7}, iteratedTaskIds.toArray());
+    }
+
+    @Test
+    public void clear() {
+        store.put(createTask(1));
+        store.put(createTask(2));
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertFalse(store.contains(1));
+        List<Task> iteratedTasks = new ArrayList<>();
+        store.forEach(iteratedTasks::add);
+        assertTrue(iteratedTasks.isEmpty());
+    }
+
+    @Test
+    public void forEachAfter() {
+        store.put(createTask(7));
+        store.put(createTask(2));
+        store.put(createTask(4));
+        store.put(createTask(9));
+
+        List<Integer> taskIds = new ArrayList<>();
+        store.forEachAfter(2, task -> {
+            taskIds.add(task.getTaskId());
+            return taskIds.size() < 2;
+        });
+        assertEquals(List.of(4, 7), taskIds);
+
+        taskIds.clear();
+        store.forEachAfter(0, task -> taskIds.add(task.getTaskId()));
+        assertEquals(List.of(2, 4, 7, 9), taskIds);
+
+        taskIds.clear();
+        store.forEachAfter(9, task -> taskIds.add(task.getTaskId()));
+        assertTrue(taskIds.isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+package kanban.service;
+
+import kanban.model.Task;
+
+import java.time.ZonedDateTime;
+import java.util.function.Supplier;
+
+class TimetableBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int INSTANCES = 20;
+    private static final int SCHEDULED_TASKS = 100_000;
+    private static final int PROBES = 100_000;
+
+    public static void main(String[] args) {
+        benchmark("BucketTimetable (eager)", () -> new InMemoryTaskManager(1,
+                Managers.getDefaultHistory(), new BucketTimetable()));
+        benchmark("BucketTimetable (sparse)", () -> new InMemoryTaskManager(1,
+                Managers.getDefaultHistory(), new BucketTimetable(true)));
+        benchmark("TreeMapTimetable", () -> new InMemoryTaskManager(1,
+                Managers.getDefaultHistory(), new TreeMapTimetable()));
+        benchmark("BitmapTimetable", () -> new InMemoryTaskManager(1,
+                Managers.getDefaultHistory(), new BitmapTimetable()));
+
+        benchmarkValidation("BucketTimetable (sparse)", new BucketTimetable(true));
+        benchmarkValidation("TreeMapTimetable", new TreeMapTimetable());
+        benchmarkValidation("BitmapTimetable", new BitmapTimetable());
+    }
+
+    private static void benchmarkValidation(String name, Timetable timetable) {
+        ZonedDateTime startTime = InMemoryTaskManager.START_TIME;
+        for (int i = 0; i < SCHEDULED_TASKS; i++) {
+            timetable.addTask(createTask(i + 1, startTime.plusMinutes(i * 120L), 90));
+        }
+        Task[] probes = new Task[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = createTask(0, startTime.plusMinutes((i * 7919L % SCHEDULED_TASKS) * 120 + 90), 24 * 60);
+        }
+        int valid = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long startNanos = System.nanoTime();
+            for (Task probe : probes) {
+                if (timetable.isTaskTimeValid(probe, null)) {
+                    valid++;
+                }
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            if (round == WARMUP_ROUNDS) {
+                System.out.printf("%-26s validation of 1-day task: %8.1f ns/check (%d valid)%n",
+                        name, (double) elapsedNanos / PROBES, valid);
+            }
+        }
+    }
+
+    private static Task createTask(int taskId, ZonedDateTime startTime, int duration) {
+        Task task = new Task("a", "b");
+        task.setTaskId(taskId);
+        task.setTimeProperties(startTime, duration);
+        return task;
+    }
+
+    private static void benchmark(String name, Supplier<TaskManager> factory) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            construct(factory);
+        }
+        long usedBefore = usedHeap();
+        long startNanos = System.nanoTime();
+        Object[] managers = construct(factory);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long usedAfter = usedHeap();
+        System.out.printf("%-26s construction: %8.3f ms/manager, retained heap: %10d bytes/manager%n",
+                name,
+                elapsedNanos / 1_000_000.0 / INSTANCES,
+                (usedAfter - usedBefore) / INSTANCES);
+        if (managers.length != INSTANCES) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static Object[] construct(Supplier<TaskManager> factory) {
+        Object[] managers = new Object[INSTANCES];
+        for (int i = 0; i < INSTANCES; i++) {
+            managers[i] = factory.get();
+        }
+        return managers;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,104 @@
+package kanban.service;
+
+import kanban.model.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+abstract class TimetableTest<T extends Timetable> {
+    public Timetable timetable;
+    public ZonedDateTime startTime = ZonedDateTime.of(
+            2023,
+            3,
+            4,
+            15,
+            0,
+            0,
+            0,
+            ZoneId.of("UTC"));
+
+    public void setTimetable(T timetable) {
+        this.timetable = timetable;
+    }
+
+    public Task createTask(int taskId, ZonedDateTime startTime, int duration) {
+        Task task = new Task("a", "b");
+        task.setTaskId(taskId);
+        task.setTimeProperties(startTime, duration);
+        return task;
+    }
+
+    @Test
+    public void isTaskTimeValid() {
+        Task task1 = createTask(1, startTime, 10);
+        Task task2 = createTask(2, startTime.plusMinutes(20), 30);
+        timetable.addTask(task1);
+        timetable.addTask(task2);
+
+        assertTrue(timetable.isTaskTimeValid(createTask(3, startTime.minusMinutes(10), 10), null));
+        assertTrue(timetable.isTaskTimeValid(createTask(3, startTime.plusMinutes(10), 10), null));
+        assertTrue(timetable.isTaskTimeValid(createTask(3, startTime.plusMinutes(50), 10), null));
+        assertFalse(timetable.isTaskTimeValid(createTask(3, startTime.minusMinutes(5), 10), null));
+        assertFalse(timetable.isTaskTimeValid(createTask(3, startTime.plusMinutes(25), 5), null));
+        assertFalse(timetable.isTaskTimeValid(createTask(3, startTime.plusMinutes(5), 20), null));
+        assertFalse(timetable.isTaskTimeValid(createTask(3, startTime.minusMinutes(60), 24 * 60), null));
+
+        ZonedDateTime otherZoneStartTime = startTime.withZoneSameInstant(ZoneId.of("UTC+03:00"));
+        assertFalse(timetable.isTaskTimeValid(createTask(3, otherZoneStartTime.plusMinutes(5), 1), null));
+        assertTrue(timetable.isTaskTimeValid(createTask(3, otherZoneStartTime.plusMinutes(10), 10), null));
+    }
+
+    @Test
+    public void isUpdatedTaskTimeValid() {
+        Task task1 = createTask(1, startTime, 10);
+        Task task2 = createTask(2, startTime.plusMinutes(20), 30);
+        timetable.addTask(task1);
+        timetable.addTask(task2);
+
+        assertTrue(timetable.isTaskTimeValid(createTask(2, startTime.plusMinutes(15), 30), task2));
+        assertTrue(timetable.isTaskTimeValid(createTask(2, startTime.plusMinutes(10), 60), task2));
+        assertFalse(timetable.isTaskTimeValid(createTask(2, startTime.plusMinutes(5), 30), task2));
+        assertFalse(timetable.isTaskTimeValid(createTask(1, startTime.plusMinutes(5), 30), task1));
+    }
+
+    @Test
+    public void addTaskAndRemoveTask() {
+        Task task1 = createTask(1, startTime, 10);
+        Task task2 = createTask(2, startTime.plusMinutes(3 * 24 * 60), 3 * 24 * 60);
+        Task task3 = createTask(3, startTime.plusYears(2), 60);
+        timetable.addTask(task1);
+        timetable.addTask(task2);
+        timetable.addTask(task3);
+
+        Task newTask = createTask(4, startTime.plusMinutes(4 * 24 * 60), 10);
+        assertFalse(timetable.isTaskTimeValid(newTask, null));
+        timetable.removeTask(task2);
+        assertTrue(timetable.isTaskTimeValid(newTask, null));
+
+        newTask = createTask(4, startTime.plusYears(2).plusMinutes(30), 60);
+        assertFalse(timetable.isTaskTimeValid(newTask, null));
+        timetable.removeTask(task3);
+        assertTrue(timetable.isTaskTimeValid(newTask, null));
+
+        EpicTask epicTask = new EpicTask("c", "d");
+        epicTask.setTaskId(5);
+        epicTask.setTimeProperties(startTime.plusMinutes(60), 60);
+        timetable.addTask(epicTask);
+        timetable.addTask(new Task("e", "f"));
+        assertTrue(timetable.isTaskTimeValid(createTask(4, startTime.plusMinutes(90), 10), null));
+    }
+
+    @Test
+    public void clear() {
+        Task task1 = createTask(1, startTime, 10);
+        timetable.addTask(task1);
+        assertFalse(timetable.isTaskTimeValid(createTask(2, startTime, 10), null));
+
+        timetable.clear();
+        assertTrue(timetable.isTaskTimeValid(createTask(2, startTime, 10), null));
+    }
+}
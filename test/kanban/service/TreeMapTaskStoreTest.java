@@ -0,0 +1,10 @@
+package kanban.service;
+
+import org.junit.jupiter.api.BeforeEach;
+
+class TreeMapTaskStoreTest extends TaskStoreTest<TreeMapTaskStore> {
+    @BeforeEach
+    public void setStore() {
+        setStore(new TreeMapTaskStore());
+    }
+}
@@ -0,0 +1,10 @@
+package kanban.service;
+
+import org.junit.jupiter.api.BeforeEach;
+
+class TreeMapTimetableTest extends TimetableTest<TreeMapTimetable> {
+    @BeforeEach
+    public void setTimetable() {
+        setTimetable(new TreeMapTimetable());
+    }
+}